@@ -0,0 +1,191 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+// Distance kernels over flattened sector values.
+
+package morphognosis;
+
+public abstract class Distance
+{
+   // Kernels.
+   public static final int SCALAR   = 0;
+   public static final int UNROLLED = 1;
+
+   // Kernel selected at runtime: -Dmorphognosis.distance=scalar forces the scalar loop.
+   public static int KERNEL = "scalar".equals(System.getProperty("morphognosis.distance")) ? SCALAR : UNROLLED;
+
+   // Sum of absolute differences of a[aOffset..] and b[bOffset..] over length values.
+   public static float l1(float[] a, int aOffset, float[] b, int bOffset, int length)
+   {
+      if (KERNEL == UNROLLED)
+      {
+         return(l1Unrolled(a, aOffset, b, bOffset, length));
+      }
+      else
+      {
+         return(l1Scalar(a, aOffset, b, bOffset, length));
+      }
+   }
+
+
+   // Bounded sum: adds differences to sum, returning early once it exceeds bound.
+   public static float l1(float[] a, int aOffset, float[] b, int bOffset, int length, float sum, float bound)
+   {
+      if (KERNEL == UNROLLED)
+      {
+         return(l1Unrolled(a, aOffset, b, bOffset, length, sum, bound));
+      }
+      else
+      {
+         return(l1Scalar(a, aOffset, b, bOffset, length, sum, bound));
+      }
+   }
+
+
+   // Sums of absolute differences of integer counts.
+   public static int l1(int[] a, int aOffset, byte[] b, int bOffset, int length)
+   {
+      int c = 0;
+
+      for (int i = 0; i < length; i++)
+      {
+         c += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(c);
+   }
+
+
+   public static int l1(int[] a, int aOffset, short[] b, int bOffset, int length)
+   {
+      int c = 0;
+
+      for (int i = 0; i < length; i++)
+      {
+         c += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(c);
+   }
+
+
+   public static int l1(byte[] a, int aOffset, byte[] b, int bOffset, int length)
+   {
+      int c = 0;
+
+      for (int i = 0; i < length; i++)
+      {
+         c += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(c);
+   }
+
+
+   public static int l1(short[] a, int aOffset, short[] b, int bOffset, int length)
+   {
+      int c = 0;
+
+      for (int i = 0; i < length; i++)
+      {
+         c += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(c);
+   }
+
+
+   // Scalar kernel.
+   public static float l1Scalar(float[] a, int aOffset, float[] b, int bOffset, int length)
+   {
+      float c = 0.0f;
+
+      for (int i = 0; i < length; i++)
+      {
+         c += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(c);
+   }
+
+
+   // Bounded scalar kernel, checking bound every 32 values.
+   public static float l1Scalar(float[] a, int aOffset, float[] b, int bOffset, int length, float sum, float bound)
+   {
+      float c = 0.0f;
+
+      for (int i = 0; i < length; i++)
+      {
+         c += Math.abs(a[aOffset + i] - b[bOffset + i]);
+         if (((i & 31) == 31) && ((sum + c) > bound))
+         {
+            return(sum + c);
+         }
+      }
+      return(sum + c);
+   }
+
+
+   // Unrolled kernel: eight independent lanes the JIT can pipeline and pack into vector registers.
+   public static float l1Unrolled(float[] a, int aOffset, float[] b, int bOffset, int length)
+   {
+      float c0 = 0.0f, c1 = 0.0f, c2 = 0.0f, c3 = 0.0f;
+      float c4 = 0.0f, c5 = 0.0f, c6 = 0.0f, c7 = 0.0f;
+      int   i  = 0;
+
+      for (int j = length - 7; i < j; i += 8)
+      {
+         int ai = aOffset + i;
+         int bi = bOffset + i;
+         c0 += Math.abs(a[ai] - b[bi]);
+         c1 += Math.abs(a[ai + 1] - b[bi + 1]);
+         c2 += Math.abs(a[ai + 2] - b[bi + 2]);
+         c3 += Math.abs(a[ai + 3] - b[bi + 3]);
+         c4 += Math.abs(a[ai + 4] - b[bi + 4]);
+         c5 += Math.abs(a[ai + 5] - b[bi + 5]);
+         c6 += Math.abs(a[ai + 6] - b[bi + 6]);
+         c7 += Math.abs(a[ai + 7] - b[bi + 7]);
+      }
+      for ( ; i < length; i++)
+      {
+         c0 += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(((c0 + c1) + (c2 + c3)) + ((c4 + c5) + (c6 + c7)));
+   }
+
+
+   // Bounded unrolled kernel.
+   public static float l1Unrolled(float[] a, int aOffset, float[] b, int bOffset, int length, float sum, float bound)
+   {
+      float c0 = 0.0f, c1 = 0.0f, c2 = 0.0f, c3 = 0.0f;
+      float c4 = 0.0f, c5 = 0.0f, c6 = 0.0f, c7 = 0.0f;
+      int   i  = 0;
+
+      for (int j = length - 7; i < j; i += 8)
+      {
+         int ai = aOffset + i;
+         int bi = bOffset + i;
+         c0 += Math.abs(a[ai] - b[bi]);
+         c1 += Math.abs(a[ai + 1] - b[bi + 1]);
+         c2 += Math.abs(a[ai + 2] - b[bi + 2]);
+         c3 += Math.abs(a[ai + 3] - b[bi + 3]);
+         c4 += Math.abs(a[ai + 4] - b[bi + 4]);
+         c5 += Math.abs(a[ai + 5] - b[bi + 5]);
+         c6 += Math.abs(a[ai + 6] - b[bi + 6]);
+         c7 += Math.abs(a[ai + 7] - b[bi + 7]);
+
+         // Check bound every 32 values.
+         if ((i & 24) == 24)
+         {
+            float c = sum + (((c0 + c1) + (c2 + c3)) + ((c4 + c5) + (c6 + c7)));
+            if (c > bound)
+            {
+               return(c);
+            }
+         }
+      }
+      for ( ; i < length; i++)
+      {
+         c0 += Math.abs(a[aOffset + i] - b[bOffset + i]);
+      }
+      return(sum + (((c0 + c1) + (c2 + c3)) + ((c4 + c5) + (c6 + c7))));
+   }
+
+
+   // Prevent instantiation.
+   private Distance() {}
+}
@@ -0,0 +1,321 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+package morphognosis;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/*
+ * Event buffer:
+ * Fixed-capacity circular store of events, oldest overwritten first.
+ * Event values, locations and times are held in parallel primitive arrays,
+ * the values of the event in slot i occupying values[i * eventDimensions] onward.
+ * Events with few active values (neither 0 nor the missing value -1) are also indexed sparsely when first used:
+ * the active dimensions of the event in slot i occupy activeDimensions[i * sparseLimit] onward.
+ * Events may also be indexed spatially by world cell and time bucket.
+ */
+public class EventBuffer
+{
+   // Dimensions.
+   public int eventDimensions;
+   public int capacity;
+
+   // Events.
+   public float[] values;
+   public int[]   x;
+   public int[]   y;
+   public int[]   time;
+
+   // Oldest event slot and number of events.
+   public int head;
+   public int size;
+
+   // Largest fraction of active values for which events are indexed sparsely.
+   public static float SPARSE_DENSITY = 0.25f;
+
+   // Sparse index: number of active dimensions by slot, -1 for dense events,
+   // UNINDEXED for events not yet indexed.
+   public static final int UNINDEXED = -2;
+   public int   sparseLimit;
+   public int[] activeDimensions;
+   public int[] activeCount;
+
+   // Spatial index, null if not indexed.
+   public EventIndex spatialIndex;
+
+   // Constructor.
+   public EventBuffer(int eventDimensions, int capacity)
+   {
+      this.eventDimensions = eventDimensions;
+      this.capacity        = capacity;
+      values               = new float[capacity * eventDimensions];
+      x    = new int[capacity];
+      y    = new int[capacity];
+      time = new int[capacity];
+      head = size = 0;
+      sparseLimit      = (int)(SPARSE_DENSITY * (float)eventDimensions);
+      activeDimensions = new int[capacity * sparseLimit];
+      activeCount      = new int[capacity];
+   }
+
+
+   // Add event, overwriting oldest if full.
+   public void add(float[] eventValues, int ex, int ey, int etime)
+   {
+      int slot;
+
+      if (size < capacity)
+      {
+         slot = (head + size) % capacity;
+         size++;
+      }
+      else
+      {
+         slot = head;
+         head = (head + 1) % capacity;
+      }
+      System.arraycopy(eventValues, 0, values, slot * eventDimensions, eventDimensions);
+      x[slot]    = ex;
+      y[slot]    = ey;
+      time[slot] = etime;
+      activeCount[slot] = UNINDEXED;
+      if (spatialIndex != null)
+      {
+         spatialIndex.add(slot, values, ex, ey, etime);
+      }
+   }
+
+
+   // Index active dimensions of event in slot if sparse enough.
+   public void index(int slot)
+   {
+      int n = 0;
+
+      for (int d = 0, e = slot * eventDimensions, a = slot * sparseLimit; d < eventDimensions; d++, e++)
+      {
+         float v = values[e];
+         if ((v != 0.0f) && (v != -1.0f))
+         {
+            if (n == sparseLimit)
+            {
+               activeCount[slot] = -1;
+               return;
+            }
+            activeDimensions[a + n] = d;
+            n++;
+         }
+      }
+      activeCount[slot] = n;
+   }
+
+
+   // Is event in slot indexed sparsely? Events are indexed when first asked.
+   public boolean isSparse(int slot)
+   {
+      if (activeCount[slot] == UNINDEXED)
+      {
+         index(slot);
+      }
+      return(activeCount[slot] != -1);
+   }
+
+
+   // Index events not yet indexed, so that concurrent readers only read the index.
+   public void indexAll()
+   {
+      for (int i = 0; i < size; i++)
+      {
+         int slot = slot(i);
+         if (activeCount[slot] == UNINDEXED)
+         {
+            index(slot);
+         }
+      }
+   }
+
+
+   // Get slot of i'th oldest event.
+   public int slot(int i)
+   {
+      return((head + i) % capacity);
+   }
+
+
+   // Find slot of event by time, -1 if not found.
+   public int find(int etime)
+   {
+      if (size > 0)
+      {
+         int i = etime - time[head];
+         if ((i >= 0) && (i < size))
+         {
+            int slot = slot(i);
+            if (time[slot] == etime)
+            {
+               return(slot);
+            }
+         }
+      }
+      return(-1);
+   }
+
+
+   // Get event value.
+   public float getValue(int slot, int dimension)
+   {
+      return(values[(slot * eventDimensions) + dimension]);
+   }
+
+
+   // Clear.
+   public void clear()
+   {
+      head = size = 0;
+      if (spatialIndex != null)
+      {
+         spatialIndex.clear();
+      }
+   }
+
+
+   // Rebuild spatial index from events.
+   public void reindex()
+   {
+      if (spatialIndex != null)
+      {
+         spatialIndex.rebuild(this);
+      }
+   }
+
+
+   // Clear event dimension of all events.
+   public void clearDimension(int dimension)
+   {
+      for (int i = 0; i < size; i++)
+      {
+         int slot = slot(i);
+         values[(slot * eventDimensions) + dimension] = 0.0f;
+         activeCount[slot] = UNINDEXED;
+      }
+      reindex();
+   }
+
+
+   // Copy events from buffer of same dimensions.
+   public void copy(EventBuffer buffer)
+   {
+      int n = Math.min(buffer.size, capacity);
+
+      head = 0;
+      size = n;
+      for (int i = 0; i < n; )
+      {
+         // Copy contiguous run of slots.
+         int from = buffer.slot(buffer.size - n + i);
+         int run  = Math.min(n - i, buffer.capacity - from);
+         System.arraycopy(buffer.values, from * eventDimensions, values, i * eventDimensions, run * eventDimensions);
+         System.arraycopy(buffer.x, from, x, i, run);
+         System.arraycopy(buffer.y, from, y, i, run);
+         System.arraycopy(buffer.time, from, time, i, run);
+         i += run;
+      }
+      for (int i = 0; i < n; i++)
+      {
+         activeCount[i] = UNINDEXED;
+      }
+      reindex();
+   }
+
+
+   // Saved size in bytes.
+   public int getSaveSize()
+   {
+      return(4 + (size * ((eventDimensions + 3) * 4)));
+   }
+
+
+   // Save to buffer, oldest first: values of all events, then x, y and time arrays.
+   public void save(ByteBuffer bytes)
+   {
+      bytes.putInt(size);
+      for (int i = 0; i < size; i++)
+      {
+         bytes.asFloatBuffer().put(values, slot(i) * eventDimensions, eventDimensions);
+         bytes.position(bytes.position() + (eventDimensions * 4));
+      }
+      int[][] fields = { x, y, time };
+      for (int[] field : fields)
+      {
+         for (int i = 0; i < size; )
+         {
+            // Put contiguous run of slots.
+            int from = slot(i);
+            int run  = Math.min(size - i, capacity - from);
+            bytes.asIntBuffer().put(field, from, run);
+            bytes.position(bytes.position() + (run * 4));
+            i += run;
+         }
+      }
+   }
+
+
+   // Load from buffer, retaining the most recent events that fit.
+   public void load(ByteBuffer bytes)
+   {
+      int n    = bytes.getInt();
+      int skip = Math.max(0, n - capacity);
+
+      clear();
+      size = n - skip;
+      bytes.position(bytes.position() + (skip * eventDimensions * 4));
+      bytes.asFloatBuffer().get(values, 0, size * eventDimensions);
+      bytes.position(bytes.position() + (size * eventDimensions * 4));
+      int[][] fields = { x, y, time };
+      for (int[] field : fields)
+      {
+         bytes.position(bytes.position() + (skip * 4));
+         bytes.asIntBuffer().get(field, 0, size);
+         bytes.position(bytes.position() + (size * 4));
+      }
+      for (int i = 0; i < size; i++)
+      {
+         activeCount[i] = UNINDEXED;
+      }
+      reindex();
+   }
+
+
+   // Load unversioned morphognostic format.
+   public void load(DataInputStream input) throws IOException
+   {
+      int n = Utility.loadInt(input);
+
+      byte[] data = new byte[n * ((eventDimensions + 3) * 4)];
+      input.readFully(data);
+      ByteBuffer bytes = ByteBuffer.wrap(data);
+      clear();
+      for (int i = 0; i < n; i++)
+      {
+         // Retain the most recent events that fit.
+         int slot;
+         if (size < capacity)
+         {
+            slot = size;
+            size++;
+         }
+         else
+         {
+            slot = head;
+            head = (head + 1) % capacity;
+         }
+         bytes.asFloatBuffer().get(values, slot * eventDimensions, eventDimensions);
+         bytes.position(bytes.position() + (eventDimensions * 4));
+         x[slot]    = bytes.getInt();
+         y[slot]    = bytes.getInt();
+         time[slot] = bytes.getInt();
+         activeCount[slot] = UNINDEXED;
+      }
+      reindex();
+   }
+}
@@ -0,0 +1,175 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+package morphognosis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/*
+ * Spatial event index:
+ * Grid hash of events keyed by world cell and time bucket.
+ * Each cell of a bucket holds the summed counts of its events' exact values, missing values counting 0,
+ * and the slots of its events, so that a neighborhood whose sector grid maps a whole cell to one sector
+ * accumulates the cell at once instead of event by event.
+ * Buckets are kept in a ring covering the event buffer; a bucket is reset when its ring entry is reused.
+ */
+public class EventIndex
+{
+   // Cell and time bucket sizes.
+   public static int CELL_SIZE   = 8;
+   public static int BUCKET_SIZE = 64;
+   public int        cellSize;
+   public int        bucketSize;
+
+   // Dimensions.
+   public int eventDimensions;
+
+   // Cell: events in a world cell during a time bucket.
+   public static class Cell
+   {
+      // Cell grid coordinates.
+      public int x, y;
+
+      // Summed counts by event dimension.
+      public int[] counts;
+
+      // Event slots.
+      public int[] slots;
+      public int   size;
+
+      public Cell(int eventDimensions)
+      {
+         counts = new int[eventDimensions];
+         slots  = new int[8];
+      }
+   }
+
+   // Bucket ring: bucket numbers, cells by key, and cells in order of creation.
+   public int[] bucketNumbers;
+   private ArrayList<HashMap<Long, Cell> > cellMaps;
+   private ArrayList<ArrayList<Cell> >     cellLists;
+
+   // Cells of reset buckets for reuse.
+   private ArrayList<Cell> spares;
+
+   // Constructor.
+   public EventIndex(int eventDimensions, int capacity)
+   {
+      this.eventDimensions = eventDimensions;
+      cellSize             = CELL_SIZE;
+      bucketSize           = BUCKET_SIZE;
+      int n = ((capacity + bucketSize - 1) / bucketSize) + 1;
+      bucketNumbers = new int[n];
+      cellMaps      = new ArrayList<HashMap<Long, Cell> >(n);
+      cellLists     = new ArrayList<ArrayList<Cell> >(n);
+      for (int i = 0; i < n; i++)
+      {
+         cellMaps.add(new HashMap<Long, Cell>());
+         cellLists.add(new ArrayList<Cell>());
+      }
+      spares = new ArrayList<Cell>();
+      clear();
+   }
+
+
+   // Add event in slot.
+   public void add(int slot, float[] values, int ex, int ey, int etime)
+   {
+      int bucket = Math.floorDiv(etime, bucketSize);
+      int r      = Math.floorMod(bucket, bucketNumbers.length);
+
+      if (bucketNumbers[r] != bucket)
+      {
+         reset(r);
+         bucketNumbers[r] = bucket;
+      }
+      int  x    = Math.floorDiv(ex, cellSize);
+      int  y    = Math.floorDiv(ey, cellSize);
+      Long key  = ((long)x << 32) | ((long)y & 0xffffffffL);
+      Cell cell = cellMaps.get(r).get(key);
+      if (cell == null)
+      {
+         if (spares.size() > 0)
+         {
+            cell = spares.remove(spares.size() - 1);
+         }
+         else
+         {
+            cell = new Cell(eventDimensions);
+         }
+         cell.x = x;
+         cell.y = y;
+         cellMaps.get(r).put(key, cell);
+         cellLists.get(r).add(cell);
+      }
+      for (int d = 0, e = slot * eventDimensions; d < eventDimensions; d++, e++)
+      {
+         float v = values[e];
+         if (v != -1.0f)
+         {
+            cell.counts[d] += (int)v;
+         }
+      }
+      if (cell.size == cell.slots.length)
+      {
+         int[] slots = new int[cell.size * 2];
+         System.arraycopy(cell.slots, 0, slots, 0, cell.size);
+         cell.slots = slots;
+      }
+      cell.slots[cell.size] = slot;
+      cell.size++;
+   }
+
+
+   // Get cells of bucket, null if not indexed.
+   public ArrayList<Cell> getCells(int bucket)
+   {
+      int r = Math.floorMod(bucket, bucketNumbers.length);
+
+      if (bucketNumbers[r] != bucket)
+      {
+         return(null);
+      }
+      return(cellLists.get(r));
+   }
+
+
+   // Reset bucket ring entry, keeping its cells for reuse.
+   private void reset(int r)
+   {
+      for (Cell cell : cellLists.get(r))
+      {
+         for (int d = 0; d < eventDimensions; d++)
+         {
+            cell.counts[d] = 0;
+         }
+         cell.size = 0;
+         spares.add(cell);
+      }
+      cellMaps.get(r).clear();
+      cellLists.get(r).clear();
+   }
+
+
+   // Clear.
+   public void clear()
+   {
+      for (int r = 0; r < bucketNumbers.length; r++)
+      {
+         reset(r);
+         bucketNumbers[r] = Integer.MIN_VALUE;
+      }
+   }
+
+
+   // Rebuild from events.
+   public void rebuild(EventBuffer events)
+   {
+      clear();
+      for (int i = 0; i < events.size; i++)
+      {
+         int slot = events.slot(i);
+         add(slot, events.values, events.x[slot], events.y[slot], events.time[slot]);
+      }
+   }
+}
@@ -10,8 +10,8 @@ import java.util.ArrayList;
 // Metamorph.
 public class Metamorph
 {
-   // Morphognostic.
-   public Morphognostic morphognostic;
+   // Morphognostic signature.
+   public MorphognosticSignature signature;
 
    // Response.
    public int    response;
@@ -28,9 +28,9 @@ public class Metamorph
    public float goalValue;
 
    // Constructors.
-   public Metamorph(Morphognostic morphognostic, int response, float goalValue)
+   public Metamorph(MorphognosticSignature signature, int response, float goalValue)
    {
-      this.morphognostic = morphognostic;
+      this.signature     = signature;
       this.response      = response;
       responseName       = "";
       ambiguous          = false;
@@ -40,10 +40,10 @@ public class Metamorph
    }
 
 
-   public Metamorph(Morphognostic morphognostic, int response,
+   public Metamorph(MorphognosticSignature signature, int response,
                     float goalValue, String responseName)
    {
-      this.morphognostic = morphognostic;
+      this.signature     = signature;
       this.response      = response;
       this.responseName  = responseName;
       ambiguous          = false;
@@ -60,7 +60,7 @@ public class Metamorph
       {
          return(false);
       }
-      if (morphognostic.compare(m.morphognostic) != 0.0f)
+      if (signature.compare(m.signature) != 0.0f)
       {
          return(false);
       }
@@ -71,7 +71,14 @@ public class Metamorph
    // Save.
    public void save(DataOutputStream output) throws IOException
    {
-      morphognostic.save(output);
+      signature.save(output);
+      saveProperties(output);
+   }
+
+
+   // Save properties other than signature.
+   private void saveProperties(DataOutputStream output) throws IOException
+   {
       Utility.saveInt(output, response);
       Utility.saveFloat(output, goalValue);
       Utility.saveString(output, responseName);
@@ -102,17 +109,23 @@ public class Metamorph
    // Load.
    public static Metamorph load(DataInputStream input) throws IOException
    {
-      Morphognostic morphognostic = Morphognostic.load(input);
-      int           response      = Utility.loadInt(input);
-      float         goalValue     = Utility.loadFloat(input);
-      String        responseName  = Utility.loadString(input);
-      boolean       ambiguous     = false;
+      return(loadProperties(input, MorphognosticSignature.load(input)));
+   }
+
+
+   // Load properties other than signature.
+   private static Metamorph loadProperties(DataInputStream input, MorphognosticSignature signature) throws IOException
+   {
+      int                    response     = Utility.loadInt(input);
+      float                  goalValue    = Utility.loadFloat(input);
+      String                 responseName = Utility.loadString(input);
+      boolean                ambiguous    = false;
 
       if (Utility.loadInt(input) == 1)
       {
          ambiguous = true;
       }
-      Metamorph metamorph = new Metamorph(morphognostic, response, goalValue, responseName);
+      Metamorph metamorph = new Metamorph(signature, response, goalValue, responseName);
       metamorph.ambiguous = ambiguous;
       int n = Utility.loadInt(input);
 
@@ -129,11 +142,43 @@ public class Metamorph
    }
 
 
+   // Save metamorphs, their signatures chained as keyframes and deltas.
+   public static void save(ArrayList<Metamorph> metamorphs, DataOutputStream output) throws IOException
+   {
+      SignatureChain chain = new SignatureChain();
+
+      for (Metamorph m : metamorphs)
+      {
+         chain.add(m.signature);
+      }
+      chain.save(output);
+      for (Metamorph m : metamorphs)
+      {
+         m.saveProperties(output);
+      }
+      output.flush();
+   }
+
+
+   // Load metamorphs saved with chained signatures.
+   public static ArrayList<Metamorph> loadAll(DataInputStream input) throws IOException
+   {
+      SignatureChain       chain      = SignatureChain.load(input);
+      ArrayList<Metamorph> metamorphs = new ArrayList<Metamorph>(chain.size());
+
+      for (int i = 0; i < chain.size(); i++)
+      {
+         metamorphs.add(loadProperties(input, chain.get(i)));
+      }
+      return(metamorphs);
+   }
+
+
    // Print.
    public void print()
    {
       System.out.println("Morphognostic:");
-      morphognostic.print();
+      signature.print();
       System.out.println("Response=" + response);
       System.out.println("ResponseName=" + responseName);
       if (ambiguous)
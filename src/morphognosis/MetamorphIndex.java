@@ -0,0 +1,101 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+package morphognosis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/*
+ * Metamorph index:
+ * Hash index from signature fingerprints to indexes of metamorphs in a list,
+ * for finding exact matches without scanning the list.
+ * Metamorphs appended to the list are indexed on next use;
+ * a list that has shrunk is reindexed.
+ */
+public class MetamorphIndex
+{
+   // Indexed metamorphs.
+   public ArrayList<Metamorph> metamorphs;
+
+   // Metamorph indexes by fingerprint, in list order.
+   public HashMap<Long, ArrayList<Integer>> index;
+
+   // Number of metamorphs indexed.
+   public int size;
+
+   // Constructor.
+   public MetamorphIndex(ArrayList<Metamorph> metamorphs)
+   {
+      this.metamorphs = metamorphs;
+      index           = new HashMap<Long, ArrayList<Integer>>();
+      size            = 0;
+   }
+
+
+   // Find index of first metamorph matching morphognostic exactly, -1 if none.
+   public int find(Morphognostic morphognostic)
+   {
+      update();
+      ArrayList<Integer> candidates = index.get(morphognostic.fingerprint());
+      if (candidates != null)
+      {
+         // Confirm against fingerprint collisions.
+         for (int i : candidates)
+         {
+            if (morphognostic.compare(metamorphs.get(i).signature, 0.0f) == 0.0f)
+            {
+               return(i);
+            }
+         }
+      }
+      return(-1);
+   }
+
+
+   // Find index of first metamorph matching signature exactly, -1 if none.
+   public int find(MorphognosticSignature signature)
+   {
+      update();
+      ArrayList<Integer> candidates = index.get(signature.fingerprint);
+      if (candidates != null)
+      {
+         for (int i : candidates)
+         {
+            if (signature.compare(metamorphs.get(i).signature) == 0.0f)
+            {
+               return(i);
+            }
+         }
+      }
+      return(-1);
+   }
+
+
+   // Index metamorphs added since last update.
+   public void update()
+   {
+      if (metamorphs.size() < size)
+      {
+         clear();
+      }
+      for ( ; size < metamorphs.size(); size++)
+      {
+         long               fingerprint = metamorphs.get(size).signature.fingerprint;
+         ArrayList<Integer> indexes     = index.get(fingerprint);
+         if (indexes == null)
+         {
+            indexes = new ArrayList<Integer>(1);
+            index.put(fingerprint, indexes);
+         }
+         indexes.add(size);
+      }
+   }
+
+
+   // Clear.
+   public void clear()
+   {
+      index.clear();
+      size = 0;
+   }
+}
@@ -5,15 +5,46 @@ package morphognosis;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Vector;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 
 /*
  * Morphognostic neighborhoods:
  * Neighborhoods are nested by increasing spatial and temporal distance from the present.
  * A neighborhood is a tiled configuration of sectors.
  * A sector is a cube space-time which contains a vector of event values contained within it.
+ *
+ * Sector values of all neighborhoods are stored contiguously in sectorValues:
+ * neighborhoods in order, sectors of a neighborhood in north-rectified order
+ * (row by row of y, then x), then event dimensions.
+ * Neighborhood and Sector objects are views over this storage.
+ *
+ * A morphognostic can also be a view over a prefix of the neighborhoods of a base morphognostic,
+ * sharing its neighborhoods, storage and events. Mutators called on a view delegate to its base.
+ *
+ * Clearing only advances a generation stamp: sector storage of an earlier generation is stale,
+ * and is zeroed when next touched, or rewritten by the next update.
+ * Likewise full neighborhood updates may be deferred: a deferred neighborhood is updated when touched,
+ * or when a bounded compare reaches it, so neighborhoods never read are never computed.
+ * Deferred updates performed together may be split across a fork/join pool: each neighborhood
+ * reads the events and writes only its own storage.
+ *
+ * Threads other than the updating one read sector values through published snapshots.
+ *
+ * In a wrapped world of given dimensions, event displacements are taken the short way around the torus.
+ * Long event horizons are indexed by world cell and time bucket, so full updates accumulate
+ * whole cells that fall within one sector at once.
  */
 public class Morphognostic
 {
@@ -26,31 +57,73 @@ public class Morphognostic
    public int[][] NEIGHBORHOOD_DIMENSIONS = DEFAULT_NEIGHBORHOOD_DIMENSIONS;
    public int[]   NEIGHBORHOOD_DURATIONS  = DEFAULT_NEIGHBORHOOD_DURATIONS;
 
+   // Incremental update: neighborhoods maintain running event counts over their time windows,
+   // adding the event entering the window and subtracting the event leaving it.
+   // Falls back to a full recompute whenever the counts might not be exact.
+   public boolean incrementalUpdate = true;
+
+   // Shift register update: leading single-sector neighborhoods of duration 1 each hold
+   // the event of their epoch, so the window of events shifts through them each step.
+   public boolean shiftRegister = true;
+
+   // Lazy update: full neighborhood updates are deferred until the neighborhood's values are read,
+   // a deferred update superseded by the next update or a clear being skipped.
+   public boolean lazyUpdate = true;
+
+   // Number of deferred neighborhood updates skipped.
+   public long skippedNeighborhoodUpdates;
+
+   // Parallel update: full neighborhood updates performed together are split across a shared pool
+   // into tasks of at least the threshold work, estimated as event values visited plus values written,
+   // staying serial below it.
+   public boolean              parallelUpdate            = false;
+   public static int           PARALLEL_UPDATE_THRESHOLD = 16384;
+   public static ForkJoinPool  updatePool                = ForkJoinPool.commonPool();
+
+   // Event horizon from which events are indexed spatially.
+   public static int SPATIAL_INDEX_EVENTS = 1024;
+
+   // World dimensions for wrapped updates, 0 if unbounded.
+   public int worldWidth, worldHeight;
+
+   // Are event displacements wrapped?
+   private boolean wrapping;
+
+   // Largest event value magnitude for which running sums are exact.
+   public static final float MAX_EXACT_EVENT_VALUE = 1024.0f;
+
    // Events.
-   public class Event
+   public EventBuffer events;
+
+
+   // Wrap displacement the short way around a world dimension, unchanged if unbounded.
+   public static int wrap(int displacement, int size)
    {
-      public float[] values;
-      public int     x;
-      public int     y;
-      public int     time;
-      public Event(float[] values, int x, int y, int time)
+      if (size <= 0)
+      {
+         return(displacement);
+      }
+      int d = Math.floorMod(displacement, size);
+      if (d > (size / 2))
       {
-         int n = values.length;
+         d -= size;
+      }
+      return(d);
+   }
 
-         this.values = new float[n];
-         for (int i = 0; i < n; i++)
+
+   // Can event values be summed without rounding?
+   public static boolean isExact(float[] values, int offset, int length)
+   {
+      for (int i = offset, j = offset + length; i < j; i++)
+      {
+         float v = values[i];
+         if ((v != -1.0f) && ((v != (float)Math.rint(v)) || (Math.abs(v) > MAX_EXACT_EVENT_VALUE)))
          {
-            this.values[i] = values[i];
+            return(false);
          }
-         this.x    = x;
-         this.y    = y;
-         this.time = time;
       }
-   }
-   public ArrayList<Event> events;
-   public Event createEvent(float[] values, int x, int y, int time)
-   {
-      return(new Event(values, x, y, time));
+      return(true);
    }
 
 
@@ -60,6 +133,12 @@ public class Morphognostic
    public int eventTime;
    public     String[] eventDimensionNames;
 
+   // Time of latest event with inexact values.
+   public int inexactEventTime;
+
+   // Location of previous update.
+   public int updateX, updateY;
+
    // Neighborhood.
    public class Neighborhood
    {
@@ -67,36 +146,72 @@ public class Morphognostic
       public int       epoch, duration;
       public boolean[] eventDimensionMap;
 
+      // Event dimensions mapped to neighborhood, compiled from map.
+      public int[] activeDims;
+
+      // Are sector counts valid for incremental update?
+      public boolean incremental;
+
+      // Is a full update deferred? Its location, world wrapping and event time.
+      public boolean  dirty;
+      private int     dirtyX, dirtyY;
+      private boolean dirtyWrap;
+      private int     dirtyTime;
+
+      // Event time of full update.
+      private int updateTime;
+
+      // Offset and size of sector values in storage.
+      public int offset, size;
+
+      // Sector rectification permutations by orientation.
+      public int[][] rectifications;
+
       // Sector.
       public class Sector
       {
-         public int     dx, dy, dimension;
-         public float[] eventDimensionValues;
+         public int dx, dy, dimension;
+
+         // Offset of event dimension values in storage.
+         public int offset;
 
-         public Sector(int dx, int dy, int dimension)
+         public Sector(int dx, int dy, int dimension, int offset)
          {
-            this.dx              = dx;
-            this.dy              = dy;
-            this.dimension       = dimension;
-            eventDimensionValues = new float[eventDimensions];
+            this.dx        = dx;
+            this.dy        = dy;
+            this.dimension = dimension;
+            this.offset    = offset;
          }
 
 
          public void setEventDimensionValue(int dimension, float value)
          {
-            eventDimensionValues[dimension] = value;
+            touch();
+            sectorValues[offset + dimension] = value;
+            shiftValid = false;
+            changed();
          }
 
 
          public float getEventDimensionValue(int dimension)
          {
-            return(eventDimensionValues[dimension]);
+            touch();
+            return(sectorValues[offset + dimension]);
          }
       }
 
       // Sectors.
       public Sector[][] sectors;
 
+      // Closest sector lookup, indexed by event displacement from neighborhood origin less closestBase.
+      // Sector positions are the same on both axes, so one table serves x and y.
+      public int[]     closestSector;
+      public boolean[] closestIncludesCenter;
+      public int       closestBase;
+
+      // Last lookup entry of the run of entries sharing the closest sectors of each entry.
+      public int[] closestRunEnd;
+
       // Constructors.
       public Neighborhood(int dx, int dy, int dimension,
                           int epoch, int duration, int sectorDimension)
@@ -115,6 +230,7 @@ public class Morphognostic
          {
             this.eventDimensionMap[i] = eventDimensionMap[i];
          }
+         compileActiveDims();
       }
 
 
@@ -129,7 +245,11 @@ public class Morphognostic
          this.duration  = duration;
          int d = dimension / sectorDimension;
          if ((d * sectorDimension) < dimension) { d++; }
-         sectors = new Sector[d][d];
+         sectors            = new Sector[d][d];
+         rectifications     = getRectifications(d);
+         offset             = sectorStorageSize;
+         size               = d * d * eventDimensions;
+         sectorStorageSize += size;
          float f = 0.0f;
          if (d > 1)
          {
@@ -141,434 +261,1913 @@ public class Morphognostic
             {
                int sdx = (int)((float)(x * sectorDimension) - ((float)x * f));
                int sdy = (int)((float)(y * sectorDimension) - ((float)y * f));
-               sectors[x][y] = new Sector(sdx, sdy, sectorDimension);
+               sectors[x][y] = new Sector(sdx, sdy, sectorDimension,
+                                          offset + (((y * d) + x) * eventDimensions));
             }
          }
+         initClosestSectors();
          eventDimensionMap = null;
+         incremental       = false;
+         compileActiveDims();
+      }
+
+
+      // Compile event dimension map into active dimensions.
+      public void compileActiveDims()
+      {
+         int n = 0;
+
+         for (int d = 0; d < eventDimensions; d++)
+         {
+            if ((eventDimensionMap == null) || eventDimensionMap[d])
+            {
+               n++;
+            }
+         }
+         activeDims = new int[n];
+         n          = 0;
+         for (int d = 0; d < eventDimensions; d++)
+         {
+            if ((eventDimensionMap == null) || eventDimensionMap[d])
+            {
+               activeDims[n] = d;
+               n++;
+            }
+         }
       }
 
 
       // Update neighborhood.
       public void update(int cx, int cy, boolean wrapWorld)
       {
+         update(cx, cy, wrapWorld, eventTime);
+      }
+
+
+      // Update neighborhood as of event time.
+      private void update(int cx, int cy, boolean wrapWorld, int time)
+      {
+         dirty      = false;
+         updateTime = time;
+
          // Clear.
-         for (int sx1 = 0, sx2 = sectors.length; sx1 < sx2; sx1++)
+         Arrays.fill(sectorValues, offset, offset + size, 0.0f);
+         Arrays.fill(sectorCounts, offset, offset + size, 0);
+
+         // Count exact events, or sum inexact ones.
+         boolean exact = hasExactCounts() && (inexactEventTime <= (time - epoch - duration));
+
+         // Accumulate values per sector.
+         // Event times are consecutive, so only the events within the time frame are visited.
+         int first = 0, last = events.size, head = 0;
+         if (events.size > 0)
+         {
+            head  = events.time[events.slot(0)];
+            first = Math.max(0, time - epoch - duration + 1 - head);
+            last  = Math.min(events.size, time - epoch + 1 - head);
+         }
+         EventIndex index = events.spatialIndex;
+         int        b1    = 0, b2 = 0;
+         if (exact && (index != null) && (duration >= (2 * index.bucketSize)))
+         {
+            b1 = Math.floorDiv(head + first + index.bucketSize - 1, index.bucketSize);
+            b2 = Math.floorDiv(head + last, index.bucketSize);
+         }
+         if (b1 < b2)
          {
-            for (int sy1 = 0, sy2 = sectors.length; sy1 < sy2; sy1++)
+            // Count whole time buckets by cell, and the events before and after them singly.
+            int b = index.bucketSize;
+            accumulate(first, (b1 * b) - head, cx, cy, wrapWorld, true);
+            for (int i = b1; i < b2; i++)
             {
-               Sector s = sectors[sx1][sy1];
-               for (int i = 0; i < eventDimensions; i++)
-               {
-                  s.eventDimensionValues[i] = 0.0f;
-               }
+               accumulateCells(index, i, cx, cy, wrapWorld);
             }
+            accumulate((b2 * b) - head, last, cx, cy, wrapWorld, true);
+         }
+         else
+         {
+            accumulate(first, last, cx, cy, wrapWorld, exact);
          }
 
-         // Accumulate values per sector.
-         for (Event event : events)
+         // Scale values by duration.
+         for (int i = offset, j = offset + size; i < j; i += eventDimensions)
+         {
+            if (exact)
+            {
+               scale(i);
+            }
+            else
+            {
+               scaleSums(i);
+            }
+         }
+         incremental = exact;
+      }
+
+
+      // Defer full update until values are read.
+      public void defer(int cx, int cy, boolean wrapWorld)
+      {
+         if (dirty)
+         {
+            skippedNeighborhoodUpdates++;
+         }
+         dirty       = true;
+         dirtyX      = cx;
+         dirtyY      = cy;
+         dirtyWrap   = wrapWorld;
+         dirtyTime   = eventTime;
+         incremental = false;
+      }
+
+
+      // Estimated work of full update: event values visited and values written.
+      public int getUpdateWork()
+      {
+         return((Math.min(duration, events.size) * activeDims.length) + size);
+      }
+
+
+      // Perform deferred update, readying storage of neighborhood to be read or written directly.
+      public void materialize()
+      {
+         zeroStaleStorage();
+         if (dirty)
+         {
+            update(dirtyX, dirtyY, dirtyWrap, dirtyTime);
+         }
+      }
+
+
+      // Accumulate events in i'th oldest first to last into closest sectors in which they occurred.
+      private void accumulate(int first, int last, int cx, int cy, boolean wrapWorld, boolean exact)
+      {
+         for (int i = first; i < last; i++)
          {
             // Filter events within time frame of neighborhood.
-            int et = eventTime - event.time;
+            int slot = events.slot(i);
+            int et   = updateTime - events.time[slot];
             if ((et >= epoch) && (et < (epoch + duration)))
             {
-               // Determine closest sector in which event occurred.
-               int    ex   = event.x;
-               int    ey   = event.y;
-               Sector s    = sectors[sectors.length / 2][sectors.length / 2];
-               int    sx   = cx + dx + s.dx + (s.dimension / 2);
-               int    sy   = cy + dy + s.dy + (s.dimension / 2);
-               int    dist = Math.abs(sx - ex) + Math.abs(sy - ey);
-               for (int x = 0, x2 = sectors.length; x < x2; x++)
+               int sectorOffset = getSector(events.x[slot], events.y[slot], cx, cy, wrapWorld).offset;
+               if (exact)
                {
-                  for (int y = 0, y2 = sectors.length; y < y2; y++)
-                  {
-                     Sector s2    = sectors[x][y];
-                     int    sx2   = cx + dx + s2.dx + (s2.dimension / 2);
-                     int    sy2   = cy + dy + s2.dy + (s2.dimension / 2);
-                     int    dist2 = Math.abs(sx2 - ex) + Math.abs(sy2 - ey);
-                     if (dist2 < dist)
-                     {
-                        dist = dist2;
-                        s    = s2;
-                        sx   = sx2;
-                        sy   = sy2;
-                     }
-                  }
+                  accumulate(sectorOffset, slot, 1);
                }
-
-               // Accumulate values.
-               for (int d = 0; d < eventDimensions; d++)
+               else
                {
-                  // Event dimension mapped to neighborhood?
-                  if ((eventDimensionMap == null) || eventDimensionMap[d])
-                  {
-                     if (event.values[d] != -1.0f)
-                     {
-                        s.eventDimensionValues[d] += event.values[d];
-                     }
-                  }
+                  accumulate(sectorOffset, slot);
                }
             }
          }
+      }
 
-         // Scale values by duration.
-         for (int sx1 = 0, sx2 = sectors.length; sx1 < sx2; sx1++)
+
+      // Accumulate counts of cells of time bucket, cell by cell when it falls within one sector.
+      private void accumulateCells(EventIndex index, int bucket, int cx, int cy, boolean wrapWorld)
+      {
+         ArrayList<EventIndex.Cell> cells = index.getCells(bucket);
+         int head = events.time[events.slot(0)];
+
+         if (cells == null)
+         {
+            accumulate((bucket * index.bucketSize) - head, ((bucket + 1) * index.bucketSize) - head, cx, cy, wrapWorld, true);
+            return;
+         }
+         for (int i = 0, j = cells.size(); i < j; i++)
          {
-            for (int sy1 = 0, sy2 = sectors.length; sy1 < sy2; sy1++)
+            EventIndex.Cell cell = cells.get(i);
+            Sector          s    = getCellSector(cell.x * index.cellSize, cell.y * index.cellSize, index.cellSize, cx, cy, wrapWorld);
+            if (s != null)
             {
-               Sector s = sectors[sx1][sy1];
-               for (int d = 0; d < eventDimensions; d++)
+               for (int d : activeDims)
                {
-                  if ((eventDimensionMap == null) || eventDimensionMap[d])
-                  {
-                     s.eventDimensionValues[d] /= (float)duration;
-                  }
+                  sectorCounts[s.offset + d] += cell.counts[d];
+               }
+            }
+            else
+            {
+               for (int k = 0; k < cell.size; k++)
+               {
+                  int slot = cell.slots[k];
+                  accumulate(getSector(events.x[slot], events.y[slot], cx, cy, wrapWorld).offset, slot, 1);
                }
             }
          }
       }
 
 
-      // Compare neighborhood.
-      public float compare(Neighborhood n)
+      // Incrementally update neighborhood with event of given time leaving or entering its time window.
+      // Called by the updating thread, which has set world wrapping.
+      public void update(int time, int sign, int cx, int cy)
       {
-         float c = 0.0f;
+         int slot = events.find(time);
 
-         float[][] values1 = rectifySectorValues();
-         float[][] values2 = n.rectifySectorValues();
-         for (int i = 0, j = sectors.length * sectors.length; i < j; i++)
+         if (slot != -1)
          {
-            for (int d = 0; d < eventDimensions; d++)
+            Sector s = getSector(events.x[slot], events.y[slot], cx, cy, wrapping);
+            accumulate(s.offset, slot, sign);
+            if (isSparse(slot))
+            {
+               scale(s.offset, slot);
+            }
+            else
             {
-               c += Math.abs(values1[i][d] - values2[i][d]);
+               scale(s.offset);
             }
          }
-         return(c);
       }
 
 
-      // Rectify sector values.
-      public float[][] rectifySectorValues()
+      // Can neighborhood be updated incrementally?
+      public boolean isIncremental()
       {
-         float[][] values = new float[sectors.length * sectors.length][eventDimensions];
-         switch (orientation)
+         if (!incremental)
+         {
+            return(false);
+         }
+
+         // Counts must remain exact while an entering event is added before the leaving one is removed.
+         if (((float)(duration + 1) * MAX_EXACT_EVENT_VALUE) > (float)(1 << 24))
          {
-         case Orientation.NORTH:
-            for (int i = 0, sy1 = 0, sy2 = sectors.length; sy1 < sy2; sy1++)
+            return(false);
+         }
+
+         // Inexact events must be older than those entering and leaving time window.
+         return(inexactEventTime < (eventTime - epoch - duration));
+      }
+
+
+      // Get closest sector in which event occurred.
+      // Manhattan distance separates by axis, so the closest sectors are those closest on both axes.
+      // Ties go to the center sector if it is among them, else to the first in x-major order.
+      // World wrapping is passed in rather than read from the morphognostic, as neighborhoods may update in parallel.
+      public Sector getSector(int ex, int ey, int cx, int cy, boolean wrapWorld)
+      {
+         int ox = ex - cx;
+         int oy = ey - cy;
+
+         if (wrapWorld)
+         {
+            ox = wrap(ox, worldWidth);
+            oy = wrap(oy, worldHeight);
+         }
+         int last = closestSector.length - 1;
+         int x    = Math.max(0, Math.min(last, ox - dx - closestBase));
+         int y    = Math.max(0, Math.min(last, oy - dy - closestBase));
+
+         if (closestIncludesCenter[x] && closestIncludesCenter[y])
+         {
+            return(sectors[sectors.length / 2][sectors.length / 2]);
+         }
+         return(sectors[closestSector[x]][closestSector[y]]);
+      }
+
+
+      // Get closest sector of all events in square cell of given corner and size, null if they differ.
+      public Sector getCellSector(int ex, int ey, int size, int cx, int cy, boolean wrapWorld)
+      {
+         int ox = ex - cx;
+         int oy = ey - cy;
+
+         if (wrapWorld)
+         {
+            // Cell must not straddle the opposite side of the world.
+            int wx = wrap(ox, worldWidth);
+            int wy = wrap(oy, worldHeight);
+            if ((wrap(ox + size - 1, worldWidth) != (wx + size - 1)) ||
+                (wrap(oy + size - 1, worldHeight) != (wy + size - 1)))
+            {
+               return(null);
+            }
+            ox = wx;
+            oy = wy;
+         }
+         int last = closestSector.length - 1;
+         int x    = Math.max(0, Math.min(last, ox - dx - closestBase));
+         int y    = Math.max(0, Math.min(last, oy - dy - closestBase));
+         if ((Math.max(0, Math.min(last, ox + size - 1 - dx - closestBase)) > closestRunEnd[x]) ||
+             (Math.max(0, Math.min(last, oy + size - 1 - dy - closestBase)) > closestRunEnd[y]))
+         {
+            return(null);
+         }
+         if (closestIncludesCenter[x] && closestIncludesCenter[y])
+         {
+            return(sectors[sectors.length / 2][sectors.length / 2]);
+         }
+         return(sectors[closestSector[x]][closestSector[y]]);
+      }
+
+
+      // Initialize closest sector lookup.
+      private void initClosestSectors()
+      {
+         int d = sectors.length;
+
+         // Sector center positions along an axis.
+         int[] positions = new int[d];
+         int   min       = Integer.MAX_VALUE;
+         int   max       = Integer.MIN_VALUE;
+         for (int i = 0; i < d; i++)
+         {
+            positions[i] = sectors[i][0].dx + (sectors[i][0].dimension / 2);
+            min          = Math.min(min, positions[i]);
+            max          = Math.max(max, positions[i]);
+         }
+
+         // Displacements beyond either end share the closest sectors of the end entries.
+         closestBase           = min - 1;
+         closestSector         = new int[(max - min) + 3];
+         closestIncludesCenter = new boolean[closestSector.length];
+         for (int j = 0; j < closestSector.length; j++)
+         {
+            int t    = closestBase + j;
+            int dist = Integer.MAX_VALUE;
+            for (int i = 0; i < d; i++)
             {
-               for (int sx1 = 0, sx2 = sectors.length; sx1 < sx2; sx1++)
+               int dist2 = Math.abs(positions[i] - t);
+               if (dist2 < dist)
                {
-                  for (int d = 0; d < eventDimensions; d++)
-                  {
-                     values[i][d] = sectors[sx1][sy1].eventDimensionValues[d];
-                  }
-                  i++;
+                  dist             = dist2;
+                  closestSector[j] = i;
                }
             }
-            break;
+            closestIncludesCenter[j] = (Math.abs(positions[d / 2] - t) == dist);
+         }
+         closestRunEnd = new int[closestSector.length];
+         for (int j = closestSector.length - 1; j >= 0; j--)
+         {
+            if ((j < closestSector.length - 1) && (closestSector[j] == closestSector[j + 1]) &&
+                (closestIncludesCenter[j] == closestIncludesCenter[j + 1]))
+            {
+               closestRunEnd[j] = closestRunEnd[j + 1];
+            }
+            else
+            {
+               closestRunEnd[j] = j;
+            }
+         }
+      }
+
+
+      // Can counts of the time window be exactly represented as float values?
+      public boolean hasExactCounts()
+      {
+         return(((float)duration * MAX_EXACT_EVENT_VALUE) <= (float)(1 << 24));
+      }
+
+
+      // Visit event in slot through its sparse index? Only if shorter than the active dimensions.
+      private boolean isSparse(int slot)
+      {
+         return((activeDims.length > events.sparseLimit) && events.isSparse(slot));
+      }
+
+
+      // Accumulate exact event values into counts of sector at storage offset.
+      private void accumulate(int sectorOffset, int slot, int sign)
+      {
+         float[] values = events.values;
 
-         case Orientation.SOUTH:
-            for (int i = 0, sy1 = sectors.length - 1; sy1 >= 0; sy1--)
+         if (isSparse(slot))
+         {
+            for (int i = 0, a = slot * events.sparseLimit, e = slot * eventDimensions; i < events.activeCount[slot]; i++, a++)
             {
-               for (int sx1 = sectors.length - 1; sx1 >= 0; sx1--)
+               int d = events.activeDimensions[a];
+               if ((eventDimensionMap == null) || eventDimensionMap[d])
                {
-                  for (int d = 0; d < eventDimensions; d++)
-                  {
-                     values[i][d] = sectors[sx1][sy1].eventDimensionValues[d];
-                  }
-                  i++;
+                  sectorCounts[sectorOffset + d] += sign * (int)values[e + d];
                }
             }
-            break;
+            return;
+         }
+         for (int d : activeDims)
+         {
+            float v = values[(slot * eventDimensions) + d];
+            if (v != -1.0f)
+            {
+               sectorCounts[sectorOffset + d] += sign * (int)v;
+            }
+         }
+      }
+
+
+      // Accumulate inexact event values into sector values at storage offset.
+      private void accumulate(int sectorOffset, int slot)
+      {
+         float[] values = events.values;
+
+         if (isSparse(slot))
+         {
+            for (int i = 0, a = slot * events.sparseLimit, e = slot * eventDimensions; i < events.activeCount[slot]; i++, a++)
+            {
+               int d = events.activeDimensions[a];
+               if ((eventDimensionMap == null) || eventDimensionMap[d])
+               {
+                  sectorValues[sectorOffset + d] += values[e + d];
+               }
+            }
+            return;
+         }
+         for (int d : activeDims)
+         {
+            float v = values[(slot * eventDimensions) + d];
+            if (v != -1.0f)
+            {
+               sectorValues[sectorOffset + d] += v;
+            }
+         }
+      }
+
+
+      // Scale counts of sector at storage offset by duration.
+      private void scale(int sectorOffset)
+      {
+         for (int d : activeDims)
+         {
+            sectorValues[sectorOffset + d] = (float)sectorCounts[sectorOffset + d] / (float)duration;
+         }
+      }
+
+
+      // Scale counts of sector at storage offset by duration in active dimensions of sparse event in slot.
+      private void scale(int sectorOffset, int slot)
+      {
+         for (int i = 0, a = slot * events.sparseLimit; i < events.activeCount[slot]; i++, a++)
+         {
+            int d = events.activeDimensions[a];
+            if ((eventDimensionMap == null) || eventDimensionMap[d])
+            {
+               sectorValues[sectorOffset + d] = (float)sectorCounts[sectorOffset + d] / (float)duration;
+            }
+         }
+      }
+
 
-         case Orientation.EAST:
-            for (int i = 0, sx1 = sectors.length - 1; sx1 >= 0; sx1--)
+      // Scale summed sector values at storage offset by duration.
+      private void scaleSums(int sectorOffset)
+      {
+         for (int d : activeDims)
+         {
+            sectorValues[sectorOffset + d] /= (float)duration;
+         }
+      }
+
+
+      // Compare neighborhood.
+      public float compare(Neighborhood n)
+      {
+         float c = 0.0f;
+
+         // Walk both storages through their rectification permutations.
+         int[]   p1 = getRectification();
+         int[]   p2 = n.getRectification();
+         materialize();
+         n.materialize();
+         float[] v1 = sectorValues;
+         float[] v2 = n.getMorphognostic().sectorValues;
+         for (int i = 0, j = sectors.length * sectors.length; i < j; i++)
+         {
+            // Values of unrectifiable orientations are zero.
+            if (p1 == null)
             {
-               for (int sy1 = 0, sy2 = sectors.length; sy1 < sy2; sy1++)
+               if (p2 != null)
                {
-                  for (int d = 0; d < eventDimensions; d++)
+                  for (int d = 0, o2 = n.offset + (p2[i] * eventDimensions); d < eventDimensions; d++, o2++)
                   {
-                     values[i][d] = sectors[sx1][sy1].eventDimensionValues[d];
+                     c += Math.abs(v2[o2]);
                   }
-                  i++;
                }
             }
-            break;
+            else if (p2 == null)
+            {
+               for (int d = 0, o1 = offset + (p1[i] * eventDimensions); d < eventDimensions; d++, o1++)
+               {
+                  c += Math.abs(v1[o1]);
+               }
+            }
+            else
+            {
+               for (int d = 0, o1 = offset + (p1[i] * eventDimensions), o2 = n.offset + (p2[i] * eventDimensions);
+                    d < eventDimensions; d++, o1++, o2++)
+               {
+                  c += Math.abs(v1[o1] - v2[o2]);
+               }
+            }
+         }
+         return(c);
+      }
+
+
+      // Compare with neighborhood values of signature.
+      public float compare(MorphognosticSignature s)
+      {
+         float c = 0.0f;
+
+         materialize();
+         int[] p = getRectification();
+         for (int i = 0, j = sectors.length * sectors.length; i < j; i++)
+         {
+            int o2 = offset + (i * eventDimensions);
+            if (p == null)
+            {
+               for (int d = 0; d < eventDimensions; d++, o2++)
+               {
+                  c += Math.abs(s.decode(o2, duration));
+               }
+            }
+            else
+            {
+               for (int d = 0, o1 = offset + (p[i] * eventDimensions); d < eventDimensions; d++, o1++, o2++)
+               {
+                  c += Math.abs(sectorValues[o1] - s.decode(o2, duration));
+               }
+            }
+         }
+         return(c);
+      }
+
+
+      // Rectify sector values.
+      public float[][] rectifySectorValues()
+      {
+         float[][] values = new float[sectors.length * sectors.length][eventDimensions];
+         int[] p          = getRectification();
+         materialize();
+         if (p != null)
+         {
+            for (int i = 0; i < p.length; i++)
+            {
+               System.arraycopy(sectorValues, offset + (p[i] * eventDimensions), values[i], 0, eventDimensions);
+            }
+         }
+         return(values);
+      }
+
+
+      // Get sector rectification permutation for orientation, null if orientation cannot be rectified.
+      public int[] getRectification()
+      {
+         return(rectifications[orientation]);
+      }
+
+
+      // Get morphognostic containing neighborhood.
+      public Morphognostic getMorphognostic()
+      {
+         return(Morphognostic.this);
+      }
+   }
+
+   /*
+    * Sector rectification permutations by orientation for a sector grid dimension:
+    * element i is the storage index of the sector at rectified position i.
+    * Sectors are stored north-rectified, so the north permutation is the identity.
+    */
+   private static HashMap<Integer, int[][]> rectificationsCache = new HashMap<Integer, int[][]>();
+
+   public static synchronized int[][] getRectifications(int dimension)
+   {
+      int[][] rectifications = rectificationsCache.get(dimension);
+      if (rectifications != null)
+      {
+         return(rectifications);
+      }
+      int d = dimension;
+      rectifications = new int[Orientation.NUM_ORIENTATIONS][];
+      int[] p = rectifications[Orientation.NORTH] = new int[d * d];
+      for (int i = 0, sy1 = 0; sy1 < d; sy1++)
+      {
+         for (int sx1 = 0; sx1 < d; sx1++)
+         {
+            p[i++] = (sy1 * d) + sx1;
+         }
+      }
+      p = rectifications[Orientation.SOUTH] = new int[d * d];
+      for (int i = 0, sy1 = d - 1; sy1 >= 0; sy1--)
+      {
+         for (int sx1 = d - 1; sx1 >= 0; sx1--)
+         {
+            p[i++] = (sy1 * d) + sx1;
+         }
+      }
+      p = rectifications[Orientation.EAST] = new int[d * d];
+      for (int i = 0, sx1 = d - 1; sx1 >= 0; sx1--)
+      {
+         for (int sy1 = 0; sy1 < d; sy1++)
+         {
+            p[i++] = (sy1 * d) + sx1;
+         }
+      }
+      p = rectifications[Orientation.WEST] = new int[d * d];
+      for (int i = 0, sx1 = 0; sx1 < d; sx1++)
+      {
+         for (int sy1 = d - 1; sy1 >= 0; sy1--)
+         {
+            p[i++] = (sy1 * d) + sx1;
+         }
+      }
+      rectificationsCache.put(dimension, rectifications);
+      return(rectifications);
+   }
+
+   // Neighborhoods.
+   public Neighborhood[] neighborhoods;
+
+   // Sector values, and event counts from which values are scaled.
+   // Counts are the sums of exact event values: they are valid only for neighborhoods flagged incremental.
+   public float[] sectorValues;
+   public int[]   sectorCounts;
+   private int    sectorStorageSize;
+
+   // Orientation.
+   public int orientation;
+
+   // Number of leading shift register neighborhoods, and whether their values match the events.
+   private int     shiftNeighborhoods;
+   private boolean shiftValid;
+
+   // Base of view, null if not a view.
+   public Morphognostic base;
+
+   // Views over prefixes of neighborhoods.
+   private ArrayList<Morphognostic> views;
+
+   // Generation, advanced by clear, and generation of sector storage contents.
+   private int generation;
+   private int sectorGeneration;
+
+   // Constructors.
+   public Morphognostic(int     orientation,
+                        int     eventDimensions,
+                        int     NUM_NEIGHBORHOODS,
+                        int[][] NEIGHBORHOOD_DIMENSIONS,
+                        int[]   NEIGHBORHOOD_DURATIONS)
+   {
+      this.orientation             = orientation;
+      this.eventDimensions         = eventDimensions;
+      this.NUM_NEIGHBORHOODS       = NUM_NEIGHBORHOODS;
+      this.NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         this.NEIGHBORHOOD_DIMENSIONS[i] = NEIGHBORHOOD_DIMENSIONS[i];
+      }
+      this.NEIGHBORHOOD_DURATIONS = new int[NUM_NEIGHBORHOODS];
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         this.NEIGHBORHOOD_DURATIONS[i] = NEIGHBORHOOD_DURATIONS[i];
+      }
+      init();
+   }
+
+
+   public Morphognostic(int orientation,
+                        int eventDimensions)
+   {
+      this.orientation     = orientation;
+      this.eventDimensions = eventDimensions;
+      init();
+   }
+
+
+   // Construct with mapped neighborhood events.
+   public Morphognostic(int         orientation,
+                        int         eventDimensions,
+                        boolean[][] neighborhoodEventDimensionMap,
+                        int         NUM_NEIGHBORHOODS,
+                        int[][]     NEIGHBORHOOD_DIMENSIONS,
+                        int[]       NEIGHBORHOOD_DURATIONS)
+   {
+      this.orientation             = orientation;
+      this.eventDimensions         = eventDimensions;
+      this.NUM_NEIGHBORHOODS       = NUM_NEIGHBORHOODS;
+      this.NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         this.NEIGHBORHOOD_DIMENSIONS[i][0] = NEIGHBORHOOD_DIMENSIONS[i][0];
+         this.NEIGHBORHOOD_DIMENSIONS[i][1] = NEIGHBORHOOD_DIMENSIONS[i][1];
+      }
+      this.NEIGHBORHOOD_DURATIONS = new int[NUM_NEIGHBORHOODS];
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         this.NEIGHBORHOOD_DURATIONS[i] = NEIGHBORHOOD_DURATIONS[i];
+      }
+      init(neighborhoodEventDimensionMap);
+   }
+
+
+   public Morphognostic(int         orientation,
+                        int         eventDimensions,
+                        boolean[][] neighborhoodEventDimensionMap)
+   {
+      this.orientation     = orientation;
+      this.eventDimensions = eventDimensions;
+      init(neighborhoodEventDimensionMap);
+   }
+
+
+   public void init()
+   {
+      init(null);
+   }
+
+
+   public void init(boolean[][] neighborhoodEventDimensionMap)
+   {
+      neighborhoods     = new Neighborhood[NUM_NEIGHBORHOODS];
+      sectorStorageSize = 0;
+      int epoch = 0;
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         int d = NEIGHBORHOOD_DIMENSIONS[i][0];
+         int s = NEIGHBORHOOD_DIMENSIONS[i][1];
+         int t = NEIGHBORHOOD_DURATIONS[i];
+         if (neighborhoodEventDimensionMap == null)
+         {
+            neighborhoods[i] = new Neighborhood(-d / 2, -d / 2, d, epoch, t, s);
+         }
+         else
+         {
+            // Create neighborhood with mapped events.
+            neighborhoods[i] = new Neighborhood(-d / 2, -d / 2, d, epoch, t, s, neighborhoodEventDimensionMap[i]);
+         }
+         epoch += t;
+      }
+      sectorValues = new float[sectorStorageSize];
+      sectorCounts = new int[sectorStorageSize];
+      compareOrder = new CompareOrder(NUM_NEIGHBORHOODS);
+      if (NUM_NEIGHBORHOODS > 0)
+      {
+         Neighborhood n = neighborhoods[NUM_NEIGHBORHOODS - 1];
+         maxEventAge = n.epoch + n.duration - 1;
+      }
+      else
+      {
+         maxEventAge = 0;
+      }
+      events              = new EventBuffer(eventDimensions, maxEventAge + 1);
+      if ((maxEventAge + 1) >= SPATIAL_INDEX_EVENTS)
+      {
+         events.spatialIndex = new EventIndex(eventDimensions, events.capacity);
+      }
+      eventTime           = 0;
+      eventDimensionNames = null;
+      inexactEventTime    = Integer.MIN_VALUE;
+      updateX             = updateY = 0;
+      initShiftRegister();
+   }
+
+
+   // Find leading neighborhoods with a single sector, duration 1 and the same event dimension map.
+   private void initShiftRegister()
+   {
+      shiftNeighborhoods = 0;
+      for (Neighborhood n : neighborhoods)
+      {
+         if ((n.sectors.length != 1) || (n.duration != 1) ||
+             !Arrays.equals(n.eventDimensionMap, neighborhoods[0].eventDimensionMap))
+         {
+            break;
+         }
+         shiftNeighborhoods++;
+      }
+      shiftValid = false;
+   }
+
+
+   // Construct view over first neighborhoods of base.
+   // Mutators of a view (update, clear, invalidate, clearEvent) act on the base, and so on all its views.
+   public Morphognostic(Morphognostic base, int numNeighborhoods)
+   {
+      this.base               = base;
+      orientation             = base.orientation;
+      eventDimensions         = base.eventDimensions;
+      NUM_NEIGHBORHOODS       = numNeighborhoods;
+      NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
+      NEIGHBORHOOD_DURATIONS  = new int[NUM_NEIGHBORHOODS];
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         NEIGHBORHOOD_DIMENSIONS[i][0] = base.NEIGHBORHOOD_DIMENSIONS[i][0];
+         NEIGHBORHOOD_DIMENSIONS[i][1] = base.NEIGHBORHOOD_DIMENSIONS[i][1];
+         NEIGHBORHOOD_DURATIONS[i]     = base.NEIGHBORHOOD_DURATIONS[i];
+      }
+      neighborhoods     = Arrays.copyOf(base.neighborhoods, NUM_NEIGHBORHOODS);
+      sectorValues      = base.sectorValues;
+      sectorCounts      = base.sectorCounts;
+      sectorStorageSize = 0;
+      maxEventAge       = 0;
+      if (NUM_NEIGHBORHOODS > 0)
+      {
+         Neighborhood n = neighborhoods[NUM_NEIGHBORHOODS - 1];
+         sectorStorageSize = n.offset + n.size;
+         maxEventAge       = n.epoch + n.duration - 1;
+      }
+      compareOrder        = new CompareOrder(NUM_NEIGHBORHOODS);
+      events              = base.events;
+      eventDimensionNames = base.eventDimensionNames;
+      incrementalUpdate   = base.incrementalUpdate;
+      if (base.views == null)
+      {
+         base.views = new ArrayList<Morphognostic>();
+      }
+      base.views.add(this);
+      base.changed();
+   }
+
+
+   // Zero stale sector storage and perform deferred neighborhood updates before storage is read or written directly.
+   public void touch()
+   {
+      zeroStaleStorage();
+      materialize();
+   }
+
+
+   // Perform deferred neighborhood updates, in parallel if enabled and worth it.
+   private void materialize()
+   {
+      if (((base != null) ? base : this).parallelUpdate)
+      {
+         int work  = 0;
+         int count = 0;
+         for (Neighborhood n : neighborhoods)
+         {
+            if (n.dirty)
+            {
+               work += n.getUpdateWork();
+               count++;
+            }
+         }
+         if ((count > 1) && (work > PARALLEL_UPDATE_THRESHOLD))
+         {
+            // Index sparse events first, so that tasks only read the events.
+            events.indexAll();
+            updatePool.invoke(new UpdateTask(neighborhoods, 0, neighborhoods.length));
+         }
+      }
+      for (Neighborhood n : neighborhoods)
+      {
+         n.materialize();
+      }
+   }
+
+
+   // Task performing deferred updates of a range of neighborhoods, splitting it by work above the threshold.
+   private static class UpdateTask extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
+
+      private Neighborhood[] neighborhoods;
+      private int            from, to;
+
+      UpdateTask(Neighborhood[] neighborhoods, int from, int to)
+      {
+         this.neighborhoods = neighborhoods;
+         this.from          = from;
+         this.to            = to;
+      }
+
+
+      @Override
+      protected void compute()
+      {
+         int work = 0;
+
+         for (int i = from; i < to; i++)
+         {
+            if (neighborhoods[i].dirty)
+            {
+               work += neighborhoods[i].getUpdateWork();
+            }
+         }
+         if (((to - from) == 1) || (work <= PARALLEL_UPDATE_THRESHOLD))
+         {
+            for (int i = from; i < to; i++)
+            {
+               neighborhoods[i].materialize();
+            }
+            return;
+         }
+
+         // Split at half the work, leaving at least one neighborhood in each part.
+         int half = 0;
+         int mid  = from + 1;
+         for (int i = from; i < to - 1; i++)
+         {
+            if (neighborhoods[i].dirty)
+            {
+               half += neighborhoods[i].getUpdateWork();
+            }
+            mid = i + 1;
+            if ((half * 2) >= work)
+            {
+               break;
+            }
+         }
+         invokeAll(new UpdateTask(neighborhoods, from, mid), new UpdateTask(neighborhoods, mid, to));
+      }
+   }
+
+
+   // Zero stale sector storage.
+   private void zeroStaleStorage()
+   {
+      if (base != null)
+      {
+         base.zeroStaleStorage();
+         return;
+      }
+      if (sectorGeneration != generation)
+      {
+         Arrays.fill(sectorValues, 0.0f);
+         Arrays.fill(sectorCounts, 0);
+         sectorGeneration = generation;
+      }
+   }
+
+
+   // Note change of sector values, synchronizing views.
+   private void changed()
+   {
+      binaryBitsOrientation = -1;
+      if (views != null)
+      {
+         for (Morphognostic v : views)
+         {
+            v.eventTime             = eventTime;
+            v.inexactEventTime      = inexactEventTime;
+            v.updateX               = updateX;
+            v.updateY               = updateY;
+            v.binaryBitsOrientation = -1;
+         }
+      }
+   }
+
+
+   // Name event dimensions.
+   public void nameEventDimensions(String[] names)
+   {
+      this.eventDimensionNames = names;
+   }
+
+
+   // Update morphognostic.
+   public void update(float[] eventDimensionValues, int cx, int cy)
+   {
+      update(eventDimensionValues, cx, cy, false);
+   }
+
+
+   public void update(float[] eventDimensionValues, int cx, int cy, boolean wrapWorld)
+   {
+      if (base != null)
+      {
+         base.update(eventDimensionValues, cx, cy, wrapWorld);
+         return;
+      }
+      if (!isExact(eventDimensionValues, 0, eventDimensions))
+      {
+         inexactEventTime = eventTime;
+      }
+
+      // Subtract events leaving incrementally updated neighborhoods before they expire.
+      // Events are placed anew when wrapping changes.
+      boolean moved = ((cx != updateX) || (cy != updateY) || (wrapWorld != wrapping));
+      wrapping = wrapWorld;
+      int     shift = shiftRegister ? shiftNeighborhoods : 0;
+      for (int i = shift; i < NUM_NEIGHBORHOODS; i++)
+      {
+         Neighborhood n = neighborhoods[i];
+         if (incrementalUpdate && !moved && n.isIncremental())
+         {
+            n.update(eventTime - n.epoch - n.duration, -1, cx, cy);
+         }
+         else
+         {
+            n.incremental = false;
+         }
+      }
+
+      // Add event, expiring the oldest.
+      events.add(eventDimensionValues, cx, cy, eventTime);
+
+      // Shift event into shift register neighborhoods.
+      if (shift > 0)
+      {
+         shift(shift);
+      }
+      else
+      {
+         shiftValid = false;
+      }
+
+      // Add entering events or fully update neighborhoods, deferring full updates if lazy.
+      for (int i = shift; i < NUM_NEIGHBORHOODS; i++)
+      {
+         Neighborhood n = neighborhoods[i];
+         if (n.incremental)
+         {
+            n.update(eventTime - n.epoch, 1, cx, cy);
+         }
+         else if (lazyUpdate || parallelUpdate)
+         {
+            n.defer(cx, cy, wrapWorld);
+         }
+         else
+         {
+            n.update(cx, cy, wrapWorld);
+         }
+      }
+      updateX = cx;
+      updateY = cy;
+
+      // All neighborhoods of a cleared morphognostic were fully updated or deferred, rewriting stale storage.
+      sectorGeneration = generation;
+
+      // Perform full updates deferred only to be done together.
+      if (!lazyUpdate && parallelUpdate)
+      {
+         materialize();
+      }
+
+      // Update event time.
+      eventTime++;
+      changed();
+      publishSnapshot();
+   }
+
+
+   // Snapshot of sector values for concurrent readers.
+   public static class Snapshot
+   {
+      // Sector values and event time when published.
+      public final float[] values;
+      public int           eventTime;
+
+      // Number of readers holding snapshot.
+      private final AtomicInteger readers = new AtomicInteger();
+
+      Snapshot(int size)
+      {
+         values = new float[size];
+      }
+
+
+      // Get sector event dimension value.
+      public float getValue(Neighborhood.Sector sector, int dimension)
+      {
+         return(values[sector.offset + dimension]);
+      }
+   }
+
+   // Double-buffered snapshots, the published one, and whether a reader has asked for a fresh one.
+   // Readers request snapshots as they acquire them. The updating thread answers a request after an update,
+   // or when publishing between updates, creating the buffers with the first publication: it refills the
+   // unpublished buffer and publishes it, skipping a publication while a reader still holds that buffer,
+   // so neither updates nor readers block. Deferred neighborhood updates are only performed on request.
+   private volatile Snapshot[] snapshots;
+   private volatile Snapshot   snapshot;
+   private volatile boolean    snapshotRequested;
+
+   // Acquire latest published snapshot, null if none yet, to be released after reading.
+   public Snapshot acquireSnapshot()
+   {
+      if (base != null)
+      {
+         return(base.acquireSnapshot());
+      }
+      snapshotRequested = true;
+      while (true)
+      {
+         Snapshot s = snapshot;
+         if (s == null)
+         {
+            return(null);
+         }
+         s.readers.incrementAndGet();
+
+         // Snapshot still published, so its buffer will not be refilled until released?
+         if (s == snapshot)
+         {
+            return(s);
+         }
+         s.readers.decrementAndGet();
+      }
+   }
+
+
+   // Release acquired snapshot.
+   public void releaseSnapshot(Snapshot s)
+   {
+      s.readers.decrementAndGet();
+   }
+
+
+   // Publish snapshot of sector values if a reader has asked for one.
+   // Called by the updating thread, such as by a paused simulation.
+   public void publishSnapshot()
+   {
+      if (base != null)
+      {
+         base.publishSnapshot();
+         return;
+      }
+      if (!snapshotRequested)
+      {
+         return;
+      }
+      Snapshot[] buffers = snapshots;
+      if (buffers == null)
+      {
+         buffers   = new Snapshot[] { new Snapshot(sectorStorageSize), new Snapshot(sectorStorageSize) };
+         snapshots = buffers;
+      }
+      Snapshot s = (snapshot == buffers[0]) ? buffers[1] : buffers[0];
+      if (s.readers.get() != 0)
+      {
+         return;
+      }
+      snapshotRequested = false;
+      touch();
+      System.arraycopy(sectorValues, 0, s.values, 0, sectorStorageSize);
+      s.eventTime = eventTime;
+      snapshot    = s;
+   }
+
+
+   // Shift event into shift register neighborhoods, rebuilding them from the events if invalid.
+   private void shift(int shift)
+   {
+      if (shiftValid)
+      {
+         int length = (shift - 1) * eventDimensions;
+         System.arraycopy(sectorValues, 0, sectorValues, eventDimensions, length);
+         System.arraycopy(sectorCounts, 0, sectorCounts, eventDimensions, length);
+         setShiftEvent(0, events.slot(events.size - 1));
+      }
+      else
+      {
+         for (int i = 0; i < shift; i++)
+         {
+            int slot = events.find(eventTime - i);
+            if (slot != -1)
+            {
+               setShiftEvent(i * eventDimensions, slot);
+            }
+            else
+            {
+               Arrays.fill(sectorValues, i * eventDimensions, (i + 1) * eventDimensions, 0.0f);
+               Arrays.fill(sectorCounts, i * eventDimensions, (i + 1) * eventDimensions, 0);
+            }
+         }
+         shiftValid = true;
+      }
+
+      // Counts are exact once the latest inexact event has passed through the neighborhood.
+      for (int i = 0; i < shift; i++)
+      {
+         neighborhoods[i].incremental = (inexactEventTime < (eventTime - i));
+      }
+   }
+
+
+   // Set values and counts at storage offset from event in slot,
+   // matching the accumulation and scaling of a full neighborhood update.
+   private void setShiftEvent(int offset, int slot)
+   {
+      int[]   activeDims = neighborhoods[0].activeDims;
+      float[] values     = events.values;
+      int     e          = slot * eventDimensions;
+
+      if (activeDims.length < eventDimensions)
+      {
+         Arrays.fill(sectorValues, offset, offset + eventDimensions, 0.0f);
+         Arrays.fill(sectorCounts, offset, offset + eventDimensions, 0);
+      }
+      for (int d : activeDims)
+      {
+         float v = values[e + d];
+         if (v != -1.0f)
+         {
+            sectorValues[offset + d] = 0.0f + v;
+            sectorCounts[offset + d] = (int)v;
+         }
+         else
+         {
+            sectorValues[offset + d] = 0.0f;
+            sectorCounts[offset + d] = 0;
+         }
+      }
+   }
+
+
+   // Compare.
+   public float compare(Morphognostic m)
+   {
+      float d = 0.0f;
+
+      touch();
+      m.touch();
+
+      // With equal orientations the rectification permutations match,
+      // so the storages can be compared directly in a single pass.
+      if ((orientation == m.orientation) && hasSameLayout(m))
+      {
+         if ((NUM_NEIGHBORHOODS == 0) || (neighborhoods[0].getRectification() == null))
+         {
+            return(0.0f);
+         }
+         return(Distance.l1(sectorValues, 0, m.sectorValues, 0, sectorStorageSize));
+      }
+      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      {
+         d += neighborhoods[i].compare(m.neighborhoods[i]);
+      }
+      return(d);
+   }
+
+
+   // Bounded compare: stops once the distance exceeds bound, returning the partial distance.
+   // Neighborhoods are compared in order of how often they have been found to differ.
+   // Deferred neighborhood updates are performed as neighborhoods are reached.
+   public float compare(Morphognostic m, float bound)
+   {
+      float d = 0.0f;
+
+      zeroStaleStorage();
+      m.zeroStaleStorage();
+      boolean flat = ((orientation == m.orientation) && hasSameLayout(m));
+      if (flat && ((NUM_NEIGHBORHOODS == 0) || (neighborhoods[0].getRectification() == null)))
+      {
+         return(0.0f);
+      }
+      int[] order = compareOrder.order;
+      for (int k = 0; k < order.length; k++)
+      {
+         int          i = order[k];
+         Neighborhood n = neighborhoods[i];
+         float        d2;
+         if (flat)
+         {
+            n.materialize();
+            m.neighborhoods[i].materialize();
+            d2 = Distance.l1(sectorValues, n.offset, m.sectorValues, n.offset, n.size, d, bound);
+         }
+         else
+         {
+            d2 = d + n.compare(m.neighborhoods[i]);
+         }
+         compareOrder.record(i, d2 != d);
+         d = d2;
+         if (d > bound)
+         {
+            break;
+         }
+      }
+      return(d);
+   }
+
+
+   // Bounded compare with signature.
+   public float compare(MorphognosticSignature s, float bound)
+   {
+      float d = 0.0f;
+
+      zeroStaleStorage();
+      if (getConfiguration() != s.configuration)
+      {
+         return(Float.MAX_VALUE);
+      }
+
+      // Hamming distance of binary values.
+      if (s.encoding == MorphognosticSignature.BINARY)
+      {
+         long[] bits = getBinaryBits();
+         if (bits != null)
+         {
+            return((float)s.hammingDistance(bits, bound));
+         }
+      }
+
+      // North-oriented storage is already rectified.
+      boolean flat  = (orientation == Orientation.NORTH);
+      int[]   order = compareOrder.order;
+      for (int k = 0; k < order.length; k++)
+      {
+         int          i = order[k];
+         Neighborhood n = neighborhoods[i];
+         float        d2;
+         n.materialize();
+         if (flat && (s.encoding == MorphognosticSignature.DENSE))
+         {
+            d2 = Distance.l1(sectorValues, n.offset, s.values, n.offset, n.size, d, bound);
+         }
+         else if (flat && n.incremental && (s.encoding == MorphognosticSignature.COUNTS))
+         {
+            // Integer count distance weighted by duration.
+            d2 = d + ((float)s.countDistance(sectorCounts, n.offset, n.size) / (float)n.duration);
+         }
+         else
+         {
+            d2 = d + n.compare(s);
+         }
+         compareOrder.record(i, d2 != d);
+         d = d2;
+         if (d > bound)
+         {
+            break;
+         }
+      }
+      return(d);
+   }
+
+
+   // Signature configuration id.
+   private int configuration = -1;
+
+   // Get signature configuration id.
+   public int getConfiguration()
+   {
+      if (configuration == -1)
+      {
+         configuration = MorphognosticSignature.Configuration.getId(new MorphognosticSignature.Configuration(this));
+      }
+      return(configuration);
+   }
+
+
+   // Get signature with encoding, falling back to dense values.
+   public MorphognosticSignature getSignature(int encoding)
+   {
+      if (encoding == MorphognosticSignature.COUNTS)
+      {
+         MorphognosticSignature s = getCountSignature();
+         if (s != null)
+         {
+            return(s);
+         }
+      }
+      if (encoding == MorphognosticSignature.BINARY)
+      {
+         long[] bits = getBinaryBits();
+         if (bits != null)
+         {
+            return(new MorphognosticSignature(getConfiguration(), bits.clone()));
+         }
+      }
+      return(getSignature());
+   }
+
+
+   // Packed binary rectified values, cached for orientation until values change.
+   private long[] binaryBits;
+   private int    binaryBitsOrientation = -1;
+
+   // Get rectified values packed as bits, null if any value is not 0 or 1.
+   public long[] getBinaryBits()
+   {
+      touch();
+      if (binaryBitsOrientation == orientation)
+      {
+         return(binaryBits);
+      }
+      binaryBits            = packBinaryBits();
+      binaryBitsOrientation = orientation;
+      return(binaryBits);
+   }
+
+
+   private long[] packBinaryBits()
+   {
+      long[] bits = new long[MorphognosticSignature.getBitsLength(sectorStorageSize)];
+
+      for (Neighborhood n : neighborhoods)
+      {
+         int[] p = n.getRectification();
+         if (p != null)
+         {
+            for (int i = 0; i < p.length; i++)
+            {
+               for (int d = 0, o = n.offset + (p[i] * eventDimensions), b = n.offset + (i * eventDimensions);
+                    d < eventDimensions; d++, o++, b++)
+               {
+                  float v = sectorValues[o];
+                  if (v == 1.0f)
+                  {
+                     bits[b >>> 6] |= 1L << b;
+                  }
+                  else if (v != 0.0f)
+                  {
+                     return(null);
+                  }
+               }
+            }
+         }
+      }
+      return(bits);
+   }
+
+
+   // Get signature of rectified sector counts, null if counts are invalid or too large.
+   public MorphognosticSignature getCountSignature()
+   {
+      int[] counts = new int[sectorStorageSize];
+      int   min    = 0;
+      int   max    = 0;
+
+      touch();
+      for (Neighborhood n : neighborhoods)
+      {
+         if (!n.incremental)
+         {
+            return(null);
+         }
+         int[] p = n.getRectification();
+         if (p != null)
+         {
+            for (int i = 0; i < p.length; i++)
+            {
+               System.arraycopy(sectorCounts, n.offset + (p[i] * eventDimensions),
+                                counts, n.offset + (i * eventDimensions), eventDimensions);
+            }
+         }
+      }
+      for (int c : counts)
+      {
+         min = Math.min(min, c);
+         max = Math.max(max, c);
+      }
+      if ((min >= Byte.MIN_VALUE) && (max <= Byte.MAX_VALUE))
+      {
+         byte[] byteCounts = new byte[counts.length];
+         for (int i = 0; i < counts.length; i++)
+         {
+            byteCounts[i] = (byte)counts[i];
+         }
+         return(new MorphognosticSignature(getConfiguration(), byteCounts));
+      }
+      if ((min >= Short.MIN_VALUE) && (max <= Short.MAX_VALUE))
+      {
+         short[] shortCounts = new short[counts.length];
+         for (int i = 0; i < counts.length; i++)
+         {
+            shortCounts[i] = (short)counts[i];
+         }
+         return(new MorphognosticSignature(getConfiguration(), shortCounts));
+      }
+      return(null);
+   }
+
+
+   // Get signature of rectified sector values.
+   public MorphognosticSignature getSignature()
+   {
+      float[] values = new float[sectorStorageSize];
+
+      touch();
+      for (Neighborhood n : neighborhoods)
+      {
+         int[] p = n.getRectification();
+         if (p != null)
+         {
+            for (int i = 0; i < p.length; i++)
+            {
+               System.arraycopy(sectorValues, n.offset + (p[i] * eventDimensions),
+                                values, n.offset + (i * eventDimensions), eventDimensions);
+            }
+         }
+      }
+      return(new MorphognosticSignature(getConfiguration(), values));
+   }
+
+
+   // Fingerprint of rectified sector values, equal to that of the signature.
+   public long fingerprint()
+   {
+      long f = MorphognosticSignature.FINGERPRINT_SEED;
+
+      touch();
+      for (Neighborhood n : neighborhoods)
+      {
+         int[] p = n.getRectification();
+         for (int i = 0, j = n.sectors.length * n.sectors.length; i < j; i++)
+         {
+            if (p == null)
+            {
+               for (int d = 0; d < eventDimensions; d++)
+               {
+                  f = MorphognosticSignature.fingerprint(f, 0.0f);
+               }
+            }
+            else
+            {
+               for (int d = 0, o = n.offset + (p[i] * eventDimensions); d < eventDimensions; d++, o++)
+               {
+                  f = MorphognosticSignature.fingerprint(f, sectorValues[o]);
+               }
+            }
+         }
+      }
+      return(MorphognosticSignature.fingerprint(f));
+   }
+
+
+   // Neighborhood compare order, shared by clones.
+   public CompareOrder compareOrder;
+
+   // Orders neighborhoods by observed rate of differing, most discriminative first.
+   public static class CompareOrder
+   {
+      public int[]  order;
+      public long[] checks;
+      public long[] differences;
+      public int    count;
+
+      // Compares between reorderings.
+      public static final int REORDER_INTERVAL = 4096;
+
+      public CompareOrder(int numNeighborhoods)
+      {
+         order       = new int[numNeighborhoods];
+         checks      = new long[numNeighborhoods];
+         differences = new long[numNeighborhoods];
+         for (int i = 0; i < numNeighborhoods; i++)
+         {
+            order[i] = i;
+         }
+         count = 0;
+      }
+
+
+      // Record neighborhood check.
+      public void record(int neighborhood, boolean different)
+      {
+         checks[neighborhood]++;
+         if (different)
+         {
+            differences[neighborhood]++;
+         }
+         count++;
+         if (count >= REORDER_INTERVAL)
+         {
+            reorder();
+         }
+      }
+
 
-         case Orientation.WEST:
-            for (int i = 0, sx1 = 0, sx2 = sectors.length; sx1 < sx2; sx1++)
+      // Reorder by rate of differing, keeping neighborhood order among equals.
+      public void reorder()
+      {
+         int[] newOrder = new int[order.length];
+         for (int i = 0; i < newOrder.length; i++)
+         {
+            int j = i;
+            for ( ; j > 0 && rate(newOrder[j - 1]) < rate(i); j--)
             {
-               for (int sy1 = sectors.length - 1; sy1 >= 0; sy1--)
-               {
-                  for (int d = 0; d < eventDimensions; d++)
-                  {
-                     values[i][d] = sectors[sx1][sy1].eventDimensionValues[d];
-                  }
-                  i++;
-               }
+               newOrder[j] = newOrder[j - 1];
             }
-            break;
+            newOrder[j] = i;
+         }
 
-         default:
-            break;
+         // Decay history so order can adapt.
+         for (int i = 0; i < order.length; i++)
+         {
+            checks[i]      /= 2;
+            differences[i] /= 2;
          }
-         return(values);
+         order = newOrder;
+         count = 0;
       }
-   }
 
-   // Neighborhoods.
-   public Vector<Neighborhood> neighborhoods;
 
-   // Orientation.
-   public int orientation;
+      private double rate(int neighborhood)
+      {
+         if (checks[neighborhood] == 0)
+         {
+            return(0.0);
+         }
+         return((double)differences[neighborhood] / (double)checks[neighborhood]);
+      }
+   }
 
-   // Constructors.
-   public Morphognostic(int     orientation,
-                        int     eventDimensions,
-                        int     NUM_NEIGHBORHOODS,
-                        int[][] NEIGHBORHOOD_DIMENSIONS,
-                        int[]   NEIGHBORHOOD_DURATIONS)
+
+   // Is sector storage laid out identically to that of given morphognostic?
+   public boolean hasSameLayout(Morphognostic m)
    {
-      this.orientation             = orientation;
-      this.eventDimensions         = eventDimensions;
-      this.NUM_NEIGHBORHOODS       = NUM_NEIGHBORHOODS;
-      this.NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
-      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      if ((NUM_NEIGHBORHOODS != m.NUM_NEIGHBORHOODS) || (eventDimensions != m.eventDimensions))
       {
-         this.NEIGHBORHOOD_DIMENSIONS[i] = NEIGHBORHOOD_DIMENSIONS[i];
+         return(false);
       }
-      this.NEIGHBORHOOD_DURATIONS = new int[NUM_NEIGHBORHOODS];
       for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
       {
-         this.NEIGHBORHOOD_DURATIONS[i] = NEIGHBORHOOD_DURATIONS[i];
+         if (neighborhoods[i].sectors.length != m.neighborhoods[i].sectors.length)
+         {
+            return(false);
+         }
       }
-      init();
+      return(true);
    }
 
 
-   public Morphognostic(int orientation,
-                        int eventDimensions)
+   // Clear.
+   public void clear()
    {
-      this.orientation     = orientation;
-      this.eventDimensions = eventDimensions;
-      init();
+      if (base != null)
+      {
+         base.clear();
+         return;
+      }
+      generation++;
+      events.clear();
+      for (Neighborhood n : neighborhoods)
+      {
+         if (n.dirty)
+         {
+            skippedNeighborhoodUpdates++;
+            n.dirty = false;
+         }
+         n.incremental = false;
+      }
+      shiftValid = false;
+      changed();
    }
 
 
-   // Construct with mapped neighborhood events.
-   public Morphognostic(int         orientation,
-                        int         eventDimensions,
-                        boolean[][] neighborhoodEventDimensionMap,
-                        int         NUM_NEIGHBORHOODS,
-                        int[][]     NEIGHBORHOOD_DIMENSIONS,
-                        int[]       NEIGHBORHOOD_DURATIONS)
+   // Find latest event with inexact values.
+   public void findInexactEvent()
    {
-      this.orientation             = orientation;
-      this.eventDimensions         = eventDimensions;
-      this.NUM_NEIGHBORHOODS       = NUM_NEIGHBORHOODS;
-      this.NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
-      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
-      {
-         this.NEIGHBORHOOD_DIMENSIONS[i][0] = NEIGHBORHOOD_DIMENSIONS[i][0];
-         this.NEIGHBORHOOD_DIMENSIONS[i][1] = NEIGHBORHOOD_DIMENSIONS[i][1];
-      }
-      this.NEIGHBORHOOD_DURATIONS = new int[NUM_NEIGHBORHOODS];
-      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      inexactEventTime = Integer.MIN_VALUE;
+      for (int i = 0; i < events.size; i++)
       {
-         this.NEIGHBORHOOD_DURATIONS[i] = NEIGHBORHOOD_DURATIONS[i];
+         int slot = events.slot(i);
+         if (!isExact(events.values, slot * eventDimensions, eventDimensions))
+         {
+            inexactEventTime = events.time[slot];
+         }
       }
-      init(neighborhoodEventDimensionMap);
    }
 
 
-   public Morphognostic(int         orientation,
-                        int         eventDimensions,
-                        boolean[][] neighborhoodEventDimensionMap)
+   // Invalidate counts, forcing full neighborhood updates.
+   public void invalidate()
    {
-      this.orientation     = orientation;
-      this.eventDimensions = eventDimensions;
-      init(neighborhoodEventDimensionMap);
+      if (base != null)
+      {
+         base.invalidate();
+         return;
+      }
+      for (Neighborhood n : neighborhoods)
+      {
+         n.incremental = false;
+      }
+      shiftValid = false;
+      changed();
    }
 
 
-   public void init()
+   // Saved format: magic, version and block length, followed by the block and its CRC32 checksum.
+   // Block: configuration, sector values in storage order, then events.
+   public static final int FORMAT_MAGIC   = 0x4d4f5247;
+   public static final int FORMAT_VERSION = 1;
+
+   // Get saved format size in bytes.
+   public int getSaveSize()
    {
-      init(null);
+      int size = 16 + (NUM_NEIGHBORHOODS * 13) + 4 + (sectorStorageSize * 4) + events.getSaveSize();
+
+      for (Neighborhood n : neighborhoods)
+      {
+         if (n.eventDimensionMap != null)
+         {
+            size += eventDimensions;
+         }
+      }
+      return(12 + size + 4);
    }
 
 
-   public void init(boolean[][] neighborhoodEventDimensionMap)
+   // Save to buffer.
+   public ByteBuffer toByteBuffer()
    {
-      neighborhoods = new Vector<Neighborhood>();
-      int epoch = 0;
+      ByteBuffer bytes = ByteBuffer.allocate(getSaveSize());
+
+      touch();
+      bytes.putInt(FORMAT_MAGIC);
+      bytes.putInt(FORMAT_VERSION);
+      bytes.putInt(bytes.capacity() - 16);
+
+      // Configuration.
+      bytes.putInt(NUM_NEIGHBORHOODS);
       for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
       {
-         int d = NEIGHBORHOOD_DIMENSIONS[i][0];
-         int s = NEIGHBORHOOD_DIMENSIONS[i][1];
-         int t = NEIGHBORHOOD_DURATIONS[i];
-         if (neighborhoodEventDimensionMap == null)
+         bytes.putInt(NEIGHBORHOOD_DIMENSIONS[i][0]);
+         bytes.putInt(NEIGHBORHOOD_DIMENSIONS[i][1]);
+         bytes.putInt(NEIGHBORHOOD_DURATIONS[i]);
+      }
+      bytes.putInt(orientation);
+      bytes.putInt(eventDimensions);
+      bytes.putInt(eventTime);
+      for (Neighborhood n : neighborhoods)
+      {
+         if (n.eventDimensionMap == null)
          {
-            neighborhoods.add(new Neighborhood(-d / 2, -d / 2, d, epoch, t, s));
+            bytes.put((byte)0);
          }
          else
          {
-            // Create neighborhood with mapped events.
-            neighborhoods.add(new Neighborhood(-d / 2, -d / 2, d, epoch, t, s, neighborhoodEventDimensionMap[i]));
+            bytes.put((byte)1);
+            for (int i = 0; i < eventDimensions; i++)
+            {
+               bytes.put((byte)(n.eventDimensionMap[i] ? 1 : 0));
+            }
          }
-         epoch += t;
       }
-      if (NUM_NEIGHBORHOODS > 0)
-      {
-         Neighborhood n = neighborhoods.get(NUM_NEIGHBORHOODS - 1);
-         maxEventAge = n.epoch + n.duration - 1;
-      }
-      else
-      {
-         maxEventAge = 0;
-      }
-      events              = new ArrayList<Event>();
-      eventTime           = 0;
-      eventDimensionNames = null;
-   }
 
+      // Sector values.
+      bytes.putInt(sectorStorageSize);
+      bytes.asFloatBuffer().put(sectorValues, 0, sectorStorageSize);
+      bytes.position(bytes.position() + (sectorStorageSize * 4));
 
-   // Name event dimensions.
-   public void nameEventDimensions(String[] names)
-   {
-      this.eventDimensionNames = names;
+      // Events.
+      events.save(bytes);
+
+      // Checksum.
+      CRC32 crc = new CRC32();
+      crc.update(bytes.array(), 12, bytes.position() - 12);
+      bytes.putInt((int)crc.getValue());
+      bytes.flip();
+      return(bytes);
    }
 
 
-   // Update morphognostic.
-   public void update(float[] eventDimensionValues, int cx, int cy)
+   // Save.
+   public void save(DataOutputStream output) throws IOException
    {
-      update(eventDimensionValues, cx, cy, false);
+      ByteBuffer bytes = toByteBuffer();
+
+      output.write(bytes.array(), 0, bytes.limit());
+      output.flush();
    }
 
 
-   public void update(float[] eventDimensionValues, int cx, int cy, boolean wrapWorld)
+   // Save to file.
+   public void save(String filename) throws IOException
    {
-      // Update events.
-      events.add(new Event(eventDimensionValues, cx, cy, eventTime));
-      if ((eventTime - events.get(0).time) > maxEventAge)
+      FileChannel channel;
+
+      try
       {
-         events.remove(0);
+         channel = new FileOutputStream(new File(filename)).getChannel();
       }
-
-      // Update neighborhoods.
-      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      catch (Exception e)
       {
-         neighborhoods.get(i).update(cx, cy, wrapWorld);
+         throw new IOException("Cannot open output file " + filename + ":" + e.getMessage());
       }
-
-      // Update event time.
-      eventTime++;
-   }
-
-
-   // Compare.
-   public float compare(Morphognostic m)
-   {
-      float d = 0.0f;
-
-      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      ByteBuffer bytes = toByteBuffer();
+      while (bytes.hasRemaining())
       {
-         d += neighborhoods.get(i).compare(m.neighborhoods.get(i));
+         channel.write(bytes);
       }
-      return(d);
+      channel.close();
    }
 
 
-   // Clear.
-   public void clear()
+   // Load from buffer, which may be memory-mapped, leaving it positioned after the saved morphognostic.
+   public static Morphognostic load(ByteBuffer bytes) throws IOException
    {
-      for (Neighborhood n : neighborhoods)
+      if (bytes.remaining() < 16)
       {
-         for (int x = 0; x < n.sectors.length; x++)
-         {
-            for (int y = 0; y < n.sectors.length; y++)
-            {
-               Neighborhood.Sector s = n.sectors[x][y];
-               for (int d = 0; d < eventDimensions; d++)
-               {
-                  s.eventDimensionValues[d] = 0.0f;
-               }
-            }
-         }
+         throw new EOFException("Truncated morphognostic");
+      }
+      if (bytes.getInt() != FORMAT_MAGIC)
+      {
+         throw new IOException("Invalid morphognostic format");
+      }
+      int version = bytes.getInt();
+      if (version != FORMAT_VERSION)
+      {
+         throw new IOException("Unsupported morphognostic format version " + version);
+      }
+      int length = bytes.getInt();
+      if ((length < 0) || (length > (bytes.remaining() - 4)))
+      {
+         throw new EOFException("Truncated morphognostic");
       }
-      events.clear();
-   }
-
 
-   // Save.
-   public void save(DataOutputStream output) throws IOException
-   {
-      Utility.saveInt(output, NUM_NEIGHBORHOODS);
-      for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+      // Verify checksum.
+      int        start = bytes.position();
+      ByteBuffer block = bytes.duplicate();
+      block.limit(start + length);
+      CRC32 crc = new CRC32();
+      crc.update(block);
+      if (bytes.getInt(start + length) != (int)crc.getValue())
       {
-         Utility.saveInt(output, NEIGHBORHOOD_DIMENSIONS[i][0]);
-         Utility.saveInt(output, NEIGHBORHOOD_DIMENSIONS[i][1]);
+         throw new IOException("Morphognostic checksum mismatch");
       }
+
+      // Configuration.
+      int NUM_NEIGHBORHOODS = bytes.getInt();
+      int[][] NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
+      int[] NEIGHBORHOOD_DURATIONS    = new int[NUM_NEIGHBORHOODS];
       for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
       {
-         Utility.saveInt(output, NEIGHBORHOOD_DURATIONS[i]);
+         NEIGHBORHOOD_DIMENSIONS[i][0] = bytes.getInt();
+         NEIGHBORHOOD_DIMENSIONS[i][1] = bytes.getInt();
+         NEIGHBORHOOD_DURATIONS[i]     = bytes.getInt();
       }
-      Utility.saveInt(output, orientation);
-      Utility.saveInt(output, eventDimensions);
-      for (Neighborhood n : neighborhoods)
+      int           orientation     = bytes.getInt();
+      int           eventDimensions = bytes.getInt();
+      int           eventTime       = bytes.getInt();
+      Morphognostic m = new Morphognostic(orientation,
+                                          eventDimensions,
+                                          NUM_NEIGHBORHOODS,
+                                          NEIGHBORHOOD_DIMENSIONS,
+                                          NEIGHBORHOOD_DURATIONS);
+      for (Neighborhood n : m.neighborhoods)
       {
-         if (n.eventDimensionMap == null)
+         if (bytes.get() == 1)
          {
-            Utility.saveInt(output, 0);
-         }
-         else
-         {
-            Utility.saveInt(output, 1);
+            n.eventDimensionMap = new boolean[eventDimensions];
             for (int i = 0; i < eventDimensions; i++)
             {
-               if (n.eventDimensionMap[i])
-               {
-                  Utility.saveInt(output, 1);
-               }
-               else
-               {
-                  Utility.saveInt(output, 0);
-               }
-            }
-         }
-         for (int x = 0; x < n.sectors.length; x++)
-         {
-            for (int y = 0; y < n.sectors.length; y++)
-            {
-               Neighborhood.Sector s = n.sectors[x][y];
-               for (int d = 0; d < eventDimensions; d++)
-               {
-                  Utility.saveFloat(output, s.eventDimensionValues[d]);
-               }
+               n.eventDimensionMap[i] = (bytes.get() == 1);
             }
+            n.compileActiveDims();
          }
       }
-      Utility.saveInt(output, events.size());
-      for (Event event : events)
+
+      // Sector values, transferred in bulk from a float view of the buffer.
+      if (bytes.getInt() != m.sectorStorageSize)
       {
-         for (float value : event.values)
-         {
-            Utility.saveFloat(output, value);
-         }
-         Utility.saveInt(output, event.x);
-         Utility.saveInt(output, event.y);
-         Utility.saveInt(output, event.time);
+         throw new IOException("Invalid morphognostic sector block");
       }
-      Utility.saveInt(output, eventTime);
-      output.flush();
+      bytes.asFloatBuffer().get(m.sectorValues, 0, m.sectorStorageSize);
+      bytes.position(bytes.position() + (m.sectorStorageSize * 4));
+
+      // Events.
+      m.events.load(bytes);
+      m.eventTime = eventTime;
+      m.findInexactEvent();
+      m.initShiftRegister();
+      bytes.position(start + length + 4);
+      return(m);
    }
 
 
    // Load.
    public static Morphognostic load(DataInputStream input) throws EOFException, IOException
    {
-      int NUM_NEIGHBORHOODS = Utility.loadInt(input);
+      int magic = Utility.loadInt(input);
+
+      if (magic != FORMAT_MAGIC)
+      {
+         // Unversioned format, beginning with the number of neighborhoods.
+         return(loadUnversioned(input, magic));
+      }
+      int version = Utility.loadInt(input);
+      int length  = Utility.loadInt(input);
+      if (length < 0)
+      {
+         throw new IOException("Invalid morphognostic format");
+      }
+      byte[] data = new byte[12 + length + 4];
+      input.readFully(data, 12, length + 4);
+      ByteBuffer bytes = ByteBuffer.wrap(data);
+      bytes.putInt(magic);
+      bytes.putInt(version);
+      bytes.putInt(length);
+      bytes.rewind();
+      return(load(bytes));
+   }
+
+
+   // Load from file by memory-mapping it.
+   public static Morphognostic load(String filename) throws IOException
+   {
+      FileChannel channel;
+
+      try
+      {
+         channel = new FileInputStream(new File(filename)).getChannel();
+      }
+      catch (Exception e)
+      {
+         throw new IOException("Cannot open input file " + filename + ":" + e.getMessage());
+      }
+      try
+      {
+         return(load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
 
+   // Load unversioned format.
+   private static Morphognostic loadUnversioned(DataInputStream input, int NUM_NEIGHBORHOODS) throws EOFException, IOException
+   {
       int[][] NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
       for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
       {
@@ -603,35 +2202,24 @@ public class Morphognostic
                   n.eventDimensionMap[i] = false;
                }
             }
+            n.compileActiveDims();
          }
+         byte[] data = new byte[n.size * 4];
+         input.readFully(data);
+         ByteBuffer bytes = ByteBuffer.wrap(data);
          for (int x = 0; x < n.sectors.length; x++)
          {
             for (int y = 0; y < n.sectors.length; y++)
             {
-               Neighborhood.Sector s = n.sectors[x][y];
-               for (int d = 0; d < eventDimensions; d++)
-               {
-                  s.eventDimensionValues[d] = Utility.loadFloat(input);
-               }
+               bytes.asFloatBuffer().get(m.sectorValues, n.sectors[x][y].offset, eventDimensions);
+               bytes.position(bytes.position() + (eventDimensions * 4));
             }
          }
       }
-      m.events.clear();
-      int n = Utility.loadInt(input);
-      for (int i = 0; i < n; i++)
-      {
-         float[] values = new float[eventDimensions];
-         for (int j = 0; j < eventDimensions; j++)
-         {
-            values[j] = Utility.loadFloat(input);
-         }
-         int   x     = Utility.loadInt(input);
-         int   y     = Utility.loadInt(input);
-         int   t     = Utility.loadInt(input);
-         Event event = m.createEvent(values, x, y, t);
-         m.events.add(m.events.size(), event);
-      }
+      m.events.load(input);
       m.eventTime = Utility.loadInt(input);
+      m.findInexactEvent();
+      m.initShiftRegister();
 
       return(m);
    }
@@ -640,6 +2228,7 @@ public class Morphognostic
    // Clone.
    public Morphognostic clone()
    {
+      touch();
       Morphognostic m = new Morphognostic(orientation,
                                           eventDimensions,
                                           NUM_NEIGHBORHOODS,
@@ -648,8 +2237,8 @@ public class Morphognostic
 
       for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
       {
-         Neighborhood n1 = m.neighborhoods.get(i);
-         Neighborhood n2 = neighborhoods.get(i);
+         Neighborhood n1 = m.neighborhoods[i];
+         Neighborhood n2 = neighborhoods[i];
          if (n2.eventDimensionMap != null)
          {
             n1.eventDimensionMap = new boolean[eventDimensions];
@@ -657,34 +2246,29 @@ public class Morphognostic
             {
                n1.eventDimensionMap[j] = n2.eventDimensionMap[j];
             }
+            n1.compileActiveDims();
          }
-         for (int x = 0; x < n1.sectors.length; x++)
-         {
-            for (int y = 0; y < n1.sectors.length; y++)
-            {
-               Neighborhood.Sector s1 = n1.sectors[x][y];
-               Neighborhood.Sector s2 = n2.sectors[x][y];
-               for (int d = 0; d < eventDimensions; d++)
-               {
-                  s1.eventDimensionValues[d] = s2.eventDimensionValues[d];
-               }
-            }
-         }
-      }
-      m.events.clear();
-      for (int i = 0, j = events.size(); i < j; i++)
-      {
-         Event event = events.get(i);
-         float[] values = new float[eventDimensions];
-         for (int k = 0; k < eventDimensions; k++)
-         {
-            values[k] = event.values[k];
-         }
-         Event event2 = m.createEvent(values, event.x, event.y, event.time);
-         m.events.add(m.events.size(), event2);
+         n1.incremental = n2.incremental;
       }
+      System.arraycopy(sectorValues, 0, m.sectorValues, 0, sectorStorageSize);
+      System.arraycopy(sectorCounts, 0, m.sectorCounts, 0, sectorStorageSize);
+      m.events.copy(events);
       m.eventTime           = eventTime;
       m.eventDimensionNames = eventDimensionNames;
+      m.inexactEventTime    = inexactEventTime;
+      m.updateX             = updateX;
+      m.updateY             = updateY;
+      m.incrementalUpdate   = incrementalUpdate;
+      m.compareOrder        = compareOrder;
+      m.configuration       = configuration;
+      m.shiftRegister       = shiftRegister;
+      m.lazyUpdate          = lazyUpdate;
+      m.parallelUpdate      = parallelUpdate;
+      m.worldWidth          = worldWidth;
+      m.worldHeight         = worldHeight;
+      m.wrapping            = wrapping;
+      m.initShiftRegister();
+      m.shiftValid = (shiftValid && (m.shiftNeighborhoods == shiftNeighborhoods));
       return(m);
    }
 
@@ -701,30 +2285,31 @@ public class Morphognostic
 
    public void clearEvent(int neighborhood, int dimensionIndex)
    {
-      Neighborhood n = neighborhoods.get(neighborhood);
-
-      for (int x = 0; x < n.sectors.length; x++)
+      if (base != null)
       {
-         for (int y = 0; y < n.sectors.length; y++)
-         {
-            Neighborhood.Sector s = n.sectors[x][y];
-            s.eventDimensionValues[dimensionIndex] = 0.0f;
-         }
+         base.clearEvent(neighborhood, dimensionIndex);
+         return;
       }
-      for (Event event : events)
+      touch();
+      Neighborhood n = neighborhoods[neighborhood];
+
+      for (int i = n.offset + dimensionIndex, j = n.offset + n.size; i < j; i += eventDimensions)
       {
-         event.values[dimensionIndex] = 0.0f;
+         sectorValues[i] = 0.0f;
       }
+      events.clearDimension(dimensionIndex);
+      invalidate();
    }
 
 
    // Print.
    public void print()
    {
+      touch();
       printParameters();
-      for (int i = 0; i < neighborhoods.size(); i++)
+      for (int i = 0; i < neighborhoods.length; i++)
       {
-         Neighborhood n = neighborhoods.get(i);
+         Neighborhood n = neighborhoods[i];
          System.out.println("neighborhood=" + i);
          System.out.println("\tdx/dy=" + n.dx + "/" + n.dy);
          System.out.println("\tdimension=" + n.dimension);
@@ -766,7 +2351,7 @@ public class Morphognostic
                      {
                         System.out.print("\t\tvalue[" + d + "] (" + eventDimensionNames[d] + ") =");
                      }
-                     System.out.println(" " + s.eventDimensionValues[d]);
+                     System.out.println(" " + s.getEventDimensionValue(d));
                   }
                }
             }
@@ -0,0 +1,1332 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+// Morphognostic benchmark.
+
+package morphognosis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class MorphognosticBenchmark
+{
+   // Usage.
+   public static final String Usage =
+      "Usage:\n" +
+      "    java morphognosis.MorphognosticBenchmark\n" +
+      "      [-compare (compare throughput)]\n" +
+      "      [-signatures (signature encoding size and compare throughput)]\n" +
+      "      [-update (update throughput, verifying shift register against generic update)]\n" +
+      "      [-pyramid (update cost of doubling neighborhood durations 1,2,4,...)]\n" +
+      "      [-sparse (update throughput of dense and sparse events of one-hot sensor groups)]\n" +
+      "      [-spatial (update cost of an agent walking a wrapped world, with and without the spatial event index)]\n" +
+      "      [-orientations (search over orientations by turning the query, and by oriented metamorph index)]\n" +
+      "      [-lazy (update and equivalence search of an agent walking a wrapped world, with eager and lazy neighborhood updates)]\n" +
+      "      [-parallel (update cost of wide configurations, serial and split across fork/join pools of increasing parallelism)]\n" +
+      "      [-verify (check sector lookup tables against exhaustive closest-sector search,\n" +
+      "                save/load round trips through buffer, stream and mapped file,\n" +
+      "                and updates with and without the spatial event index against a toroidal reference)]\n" +
+      "      [-randomSeed <random number seed> (default=4517)]\n" +
+      "  With no benchmark options all benchmarks are run.";
+
+   // Configurations: { <number of neighborhoods>, <neighborhood dimension>, <sector dimension>, <event dimensions> }
+   public static final int[][] CONFIGURATIONS =
+   {
+      { 15, 1, 1, 27 },
+      { 15, 1, 1, 256 },
+      { 60, 1, 1, 27 },
+      { 15, 3, 1, 27 },
+      { 30, 5, 1, 64 }
+   };
+
+   // Morphognostics compared per configuration.
+   public static int DB_SIZE = 1000;
+
+   // Timed passes over database.
+   public static int PASSES = 200;
+
+   // Random numbers.
+   public static Random random = new Random(4517);
+
+   // Result sink preventing dead code elimination.
+   public static volatile float sink;
+
+   // Create morphognostic for configuration with random binary history.
+   public static Morphognostic createMorphognostic(int[] configuration)
+   {
+      int numNeighborhoods = configuration[0];
+
+      int[][] dimensions = new int[numNeighborhoods][2];
+      int[] durations    = new int[numNeighborhoods];
+      for (int i = 0; i < numNeighborhoods; i++)
+      {
+         dimensions[i][0] = configuration[1];
+         dimensions[i][1] = configuration[2];
+         durations[i]     = 1;
+      }
+      Morphognostic m      = new Morphognostic(Orientation.NORTH, configuration[3],
+                                               numNeighborhoods, dimensions, durations);
+      float[]       values = new float[configuration[3]];
+      for (int t = 0; t <= m.maxEventAge; t++)
+      {
+         for (int d = 0; d < values.length; d++)
+         {
+            values[d] = random.nextInt(8) == 0 ? 1.0f : 0.0f;
+         }
+         m.update(values, random.nextInt(configuration[1]) - (configuration[1] / 2),
+                  random.nextInt(configuration[1]) - (configuration[1] / 2));
+      }
+      return(m);
+   }
+
+
+   // Configuration description.
+   public static String describe(int[] configuration)
+   {
+      return("neighborhoods=" + configuration[0] +
+             " dimension=" + configuration[1] + "/" + configuration[2] +
+             " eventDimensions=" + configuration[3]);
+   }
+
+
+   // Compare throughput: neighborhood-wise rectified compare against flat kernels.
+   public static void compareBenchmark()
+   {
+      System.out.println("Compare throughput (million compares/second):");
+      System.out.println("  reference = neighborhood rectified compare, scalar/unrolled = flat kernels");
+      for (int[] configuration : CONFIGURATIONS)
+      {
+         Morphognostic   query = createMorphognostic(configuration);
+         Morphognostic[] db    = new Morphognostic[DB_SIZE];
+         for (int i = 0; i < DB_SIZE; i++)
+         {
+            db[i] = createMorphognostic(configuration);
+         }
+         double reference = 0.0, scalar = 0.0, unrolled = 0.0;
+         float  check     = 0.0f;
+         for (int trial = 0; trial < 2; trial++)
+         {
+            // First trial warms up.
+            long t = System.nanoTime();
+            for (int p = 0; p < PASSES; p++)
+            {
+               for (Morphognostic m : db)
+               {
+                  for (int i = 0; i < query.NUM_NEIGHBORHOODS; i++)
+                  {
+                     check += query.neighborhoods[i].compare(m.neighborhoods[i]);
+                  }
+               }
+            }
+            reference = rate(t);
+            Distance.KERNEL = Distance.SCALAR;
+            t = System.nanoTime();
+            for (int p = 0; p < PASSES; p++)
+            {
+               for (Morphognostic m : db)
+               {
+                  check -= query.compare(m);
+               }
+            }
+            scalar          = rate(t);
+            Distance.KERNEL = Distance.UNROLLED;
+            t = System.nanoTime();
+            for (int p = 0; p < PASSES; p++)
+            {
+               for (Morphognostic m : db)
+               {
+                  check += query.compare(m);
+               }
+            }
+            unrolled = rate(t);
+         }
+         sink = check;
+         System.out.printf("  %s: reference=%.2f scalar=%.2f unrolled=%.2f (x%.1f)%n",
+                           describe(configuration), reference, scalar, unrolled, unrolled / reference);
+      }
+   }
+
+
+   // Signature encodings: storage size and compare throughput of live morphognostic against signatures.
+   public static void signatureBenchmark()
+   {
+      int[]    encodings = { MorphognosticSignature.DENSE, MorphognosticSignature.COUNTS, MorphognosticSignature.BINARY };
+      String[] names     = { "dense", "counts", "binary" };
+
+      System.out.println("Signature encodings (value bytes per signature, million compares/second):");
+      for (int[] configuration : CONFIGURATIONS)
+      {
+         Morphognostic   query = createMorphognostic(configuration);
+         Morphognostic[] db    = new Morphognostic[DB_SIZE];
+         for (int i = 0; i < DB_SIZE; i++)
+         {
+            db[i] = createMorphognostic(configuration);
+         }
+         System.out.print("  " + describe(configuration) + ":");
+         for (int e = 0; e < encodings.length; e++)
+         {
+            MorphognosticSignature[] signatures = new MorphognosticSignature[DB_SIZE];
+            for (int i = 0; i < DB_SIZE; i++)
+            {
+               signatures[i] = db[i].getSignature(encodings[e]);
+            }
+            double r     = 0.0;
+            float  check = 0.0f;
+            for (int trial = 0; trial < 2; trial++)
+            {
+               long t = System.nanoTime();
+               for (int p = 0; p < PASSES; p++)
+               {
+                  for (MorphognosticSignature s : signatures)
+                  {
+                     check += query.compare(s, Float.MAX_VALUE);
+                  }
+               }
+               r = rate(t);
+            }
+            sink = check;
+            System.out.printf(" %s=%d/%.2f", names[e], getValueBytes(signatures[0]), r);
+         }
+         System.out.println();
+      }
+   }
+
+
+   // Update throughput of shift register, incremental and full updates.
+   // Shift register values are verified identical to those of the generic update at every step.
+   public static void updateBenchmark()
+   {
+      int steps = 20000;
+
+      System.out.println("Update throughput (million updates/second):");
+      for (int[] configuration : CONFIGURATIONS)
+      {
+         if ((configuration[1] != 1) || (configuration[2] != 1))
+         {
+            continue;
+         }
+         int numNeighborhoods = configuration[0];
+         int[][] dimensions   = new int[numNeighborhoods][2];
+         int[] durations      = new int[numNeighborhoods];
+         for (int i = 0; i < numNeighborhoods; i++)
+         {
+            dimensions[i][0] = dimensions[i][1] = 1;
+            durations[i]     = 1;
+         }
+         Morphognostic[] morphognostics = new Morphognostic[3];
+         for (int i = 0; i < morphognostics.length; i++)
+         {
+            morphognostics[i] = new Morphognostic(Orientation.NORTH, configuration[3],
+                                                  numNeighborhoods, dimensions, durations);
+         }
+         morphognostics[1].shiftRegister     = false;
+         morphognostics[2].shiftRegister     = false;
+         morphognostics[2].incrementalUpdate = false;
+         for (Morphognostic m : morphognostics)
+         {
+            m.lazyUpdate = false;
+         }
+
+         // Random events, with occasional missing and inexact values.
+         float[][] events = new float[steps][configuration[3]];
+         for (int t = 0; t < steps; t++)
+         {
+            for (int d = 0; d < configuration[3]; d++)
+            {
+               switch (random.nextInt(16))
+               {
+               case 0:
+                  events[t][d] = -1.0f;
+                  break;
+
+               case 1:
+                  events[t][d] = random.nextInt(200) == 0 ? 0.5f : 2.0f;
+                  break;
+
+               default:
+                  events[t][d] = random.nextInt(8) == 0 ? 1.0f : 0.0f;
+                  break;
+               }
+            }
+         }
+
+         // Verify.
+         for (int t = 0; t < steps; t++)
+         {
+            for (Morphognostic m : morphognostics)
+            {
+               m.update(events[t], 0, 0);
+            }
+            if (random.nextInt(1000) == 0)
+            {
+               for (Morphognostic m : morphognostics)
+               {
+                  m.clear();
+               }
+            }
+            if (!verifyUpdate(morphognostics))
+            {
+               System.err.println("Shift register update differs from generic update: " +
+                                  describe(configuration) + " step=" + t);
+               System.exit(1);
+            }
+         }
+
+         // Time.
+         double[] rates = new double[morphognostics.length];
+         for (int trial = 0; trial < 2; trial++)
+         {
+            for (int i = 0; i < morphognostics.length; i++)
+            {
+               Morphognostic m = morphognostics[i];
+               long          t = System.nanoTime();
+               for (int j = 0; j < steps; j++)
+               {
+                  m.update(events[j], 0, 0);
+               }
+               rates[i] = ((double)steps / ((double)(System.nanoTime() - t) / 1.0e9)) / 1.0e6;
+            }
+         }
+         System.out.printf("  %s: shift=%.3f incremental=%.3f full=%.3f (x%.1f) verified%n",
+                           describe(configuration), rates[0], rates[1], rates[2], rates[0] / rates[1]);
+      }
+   }
+
+
+   // Update cost of temporal pyramids: neighborhood durations 1,2,4,... over horizons of 2^k - 1 events.
+   // Incremental updates visit the entering and leaving event of each neighborhood, O(log T) per step;
+   // full updates visit the events within each time frame, O(T) per step.
+   public static void pyramidBenchmark()
+   {
+      int steps = 20000;
+      int eventDimensions = 27;
+
+      System.out.println("Temporal pyramid update (microseconds/update):");
+      float[][] events = new float[steps][eventDimensions];
+      for (int t = 0; t < steps; t++)
+      {
+         for (int d = 0; d < eventDimensions; d++)
+         {
+            events[t][d] = random.nextInt(8) == 0 ? 1.0f : 0.0f;
+         }
+      }
+      for (int numNeighborhoods = 4; numNeighborhoods <= 12; numNeighborhoods += 2)
+      {
+         int[][] dimensions = new int[numNeighborhoods][2];
+         int[] durations    = new int[numNeighborhoods];
+         for (int i = 0; i < numNeighborhoods; i++)
+         {
+            dimensions[i][0] = 3;
+            dimensions[i][1] = 1;
+            durations[i]     = 1 << i;
+         }
+         double incremental = 0.0, full = 0.0;
+         int    horizon     = 0;
+         for (int trial = 0; trial < 2; trial++)
+         {
+            for (int mode = 0; mode < 2; mode++)
+            {
+               Morphognostic m = new Morphognostic(Orientation.NORTH, eventDimensions,
+                                                   numNeighborhoods, dimensions, durations);
+               m.incrementalUpdate = (mode == 0);
+               m.lazyUpdate        = false;
+               horizon             = m.maxEventAge + 1;
+
+               // Fill time frames before timing.
+               for (int j = 0; j < horizon; j++)
+               {
+                  m.update(events[j % steps], 0, 0);
+               }
+               int  n = (mode == 0) ? steps : Math.min(steps, 2000000 / horizon);
+               long t = System.nanoTime();
+               for (int j = 0; j < n; j++)
+               {
+                  m.update(events[(horizon + j) % steps], 0, 0);
+               }
+               double us = ((double)(System.nanoTime() - t) / 1.0e3) / (double)n;
+               if (mode == 0)
+               {
+                  incremental = us;
+               }
+               else
+               {
+                  full = us;
+               }
+            }
+         }
+         System.out.printf("  neighborhoods=%d horizon=%d: incremental=%.3f full=%.3f%n",
+                           numNeighborhoods, horizon, incremental, full);
+      }
+   }
+
+
+   // Sparse events: wide sensor vectors of one-hot groups, as maze room marks, updated
+   // with events indexed densely and sparsely, verifying identical values.
+   public static void sparseBenchmark()
+   {
+      int   steps           = 20000;
+      int   groupSize       = 16;
+      int[] sensorWidths    = { 64, 256, 1024, 4096 };
+      int[] neighborhoodDimensions = { 1, 3 };
+
+      System.out.println("Sparse events (thousand updates/second, one-hot groups of " + groupSize + "):");
+      float density = EventBuffer.SPARSE_DENSITY;
+      for (int width : sensorWidths)
+      {
+         float[][] events = new float[steps][width];
+         for (int t = 0; t < steps; t++)
+         {
+            for (int g = 0; g < width; g += groupSize)
+            {
+               events[t][g + random.nextInt(groupSize)] = 1.0f;
+            }
+         }
+         for (int dimension : neighborhoodDimensions)
+         {
+            int numNeighborhoods = 15;
+            int[][] dimensions   = new int[numNeighborhoods][2];
+            int[] durations      = new int[numNeighborhoods];
+            for (int i = 0; i < numNeighborhoods; i++)
+            {
+               dimensions[i][0] = dimension;
+               dimensions[i][1] = 1;
+               durations[i]     = 1;
+            }
+            Morphognostic[] morphognostics = new Morphognostic[2];
+            double[] rates = new double[2];
+            for (int trial = 0; trial < 2; trial++)
+            {
+               for (int i = 0; i < 2; i++)
+               {
+                  EventBuffer.SPARSE_DENSITY = (i == 0) ? 0.0f : density;
+                  Morphognostic m = new Morphognostic(Orientation.NORTH, width,
+                                                      numNeighborhoods, dimensions, durations);
+                  EventBuffer.SPARSE_DENSITY = density;
+                  long t = System.nanoTime();
+                  for (int j = 0; j < steps; j++)
+                  {
+                     m.update(events[j], 0, 0);
+                  }
+                  rates[i]          = ((double)steps / ((double)(System.nanoTime() - t) / 1.0e9)) / 1.0e3;
+                  morphognostics[i] = m;
+               }
+            }
+            if (morphognostics[0].compare(morphognostics[1]) != 0.0f)
+            {
+               System.err.println("Sparse events update differs from dense: width=" + width);
+               System.exit(1);
+            }
+            System.out.printf("  width=%d dimension=%d/1: dense=%.1f sparse=%.1f (x%.1f) verified%n",
+                              width, dimension, rates[0], rates[1], rates[1] / rates[0]);
+         }
+      }
+   }
+
+
+   // Orientation-invariant search: best metamorph over the cardinal orientations, by turning the query
+   // for four compares per metamorph, and by the oriented metamorph index, verifying identical matches.
+   public static void orientationBenchmark()
+   {
+      int   queries   = 20;
+      int[] cardinals = { Orientation.NORTH, Orientation.EAST, Orientation.SOUTH, Orientation.WEST };
+
+      System.out.println("Orientation-invariant search (searches/second over " + DB_SIZE + " metamorphs):");
+      for (int[] configuration : CONFIGURATIONS)
+      {
+         if (configuration[1] == configuration[2])
+         {
+            // Single sector neighborhoods look the same in every orientation.
+            continue;
+         }
+         ArrayList<Metamorph> metamorphs = new ArrayList<Metamorph>();
+         Morphognostic[] db = new Morphognostic[DB_SIZE];
+         for (int i = 0; i < DB_SIZE; i++)
+         {
+            db[i] = createMorphognostic(configuration);
+            db[i].orientation = cardinals[random.nextInt(cardinals.length)];
+            metamorphs.add(new Metamorph(db[i].getSignature(MorphognosticSignature.DENSE), 0, 0.0f));
+            db[i].orientation = Orientation.NORTH;
+         }
+         // Queries alternate new morphognostics and revisits of stored ones.
+         Morphognostic[] q = new Morphognostic[queries];
+         for (int i = 0; i < queries; i++)
+         {
+            q[i] = ((i % 2) == 0) ? createMorphognostic(configuration) : db[random.nextInt(DB_SIZE)];
+         }
+         // Index twice: the first warms up.
+         OrientedMetamorphIndex index = new OrientedMetamorphIndex(metamorphs);
+         index.update();
+         index = new OrientedMetamorphIndex(metamorphs);
+         long t = System.nanoTime();
+         index.update();
+         double indexMs = (double)(System.nanoTime() - t) / 1.0e6;
+         double turned  = 0.0, indexed = 0.0;
+         for (int trial = 0; trial < 2; trial++)
+         {
+            // First trial warms up.
+            t = System.nanoTime();
+            int[]   bestIndex       = new int[queries];
+            int[]   bestOrientation = new int[queries];
+            float[] bestDist        = new float[queries];
+            for (int i = 0; i < queries; i++)
+            {
+               bestIndex[i] = -1;
+               bestDist[i]  = Float.MAX_VALUE;
+               for (int j = 0; j < DB_SIZE; j++)
+               {
+                  for (int o : cardinals)
+                  {
+                     q[i].orientation = o;
+                     float d = q[i].compare(metamorphs.get(j).signature, bestDist[i]);
+                     if ((d < bestDist[i]) || ((bestIndex[i] == -1) && (d <= bestDist[i])))
+                     {
+                        bestIndex[i]       = j;
+                        bestOrientation[i] = o;
+                        bestDist[i]        = d;
+                     }
+                  }
+               }
+               q[i].orientation = Orientation.NORTH;
+            }
+            turned = (double)queries / ((double)(System.nanoTime() - t) / 1.0e9);
+            t      = System.nanoTime();
+            OrientedMetamorphIndex.Match[] matches = new OrientedMetamorphIndex.Match[queries];
+            for (int i = 0; i < queries; i++)
+            {
+               matches[i] = index.search(q[i], Float.MAX_VALUE);
+            }
+            indexed = (double)queries / ((double)(System.nanoTime() - t) / 1.0e9);
+            for (int i = 0; i < queries; i++)
+            {
+               if ((matches[i].index != bestIndex[i]) || (matches[i].orientation != bestOrientation[i]) ||
+                   (matches[i].distance != bestDist[i]))
+               {
+                  System.err.println("Oriented search differs: " + describe(configuration));
+                  System.exit(1);
+               }
+            }
+         }
+
+         // Each stored metamorph is found exactly from its north morphognostic, in its orientation.
+         for (int i = 0; i < DB_SIZE; i++)
+         {
+            OrientedMetamorphIndex.Match match = index.find(db[i]);
+            if ((match == null) || (match.distance != 0.0f) ||
+                (match.metamorph.signature.compare(metamorphs.get(i).signature) != 0.0f))
+            {
+               System.err.println("Oriented exact match failed: " + describe(configuration));
+               System.exit(1);
+            }
+         }
+         System.out.printf("  %s: turned=%.1f indexed=%.1f (x%.1f) index build=%.1fms verified%n",
+                           describe(configuration), turned, indexed, indexed / turned, indexMs);
+      }
+   }
+
+
+   // Spatial event index: an agent walking a wrapped world moves every step, so every neighborhood
+   // is fully updated over its time frame, with and without events indexed by cell and time bucket.
+   // Horizons stay within exact counts, which the index aggregates.
+   public static void spatialBenchmark()
+   {
+      int     worldSize       = 256;
+      int     eventDimensions = 16;
+      int[]   horizons        = { 2000, 4000, 8000, 16000 };
+      int[][] dimensions      = { { 3, 1 }, { 9, 3 }, { 33, 11 } };
+
+      System.out.println("Spatial event index (microseconds/update, wrapped " + worldSize + "x" + worldSize + " world):");
+      int threshold = Morphognostic.SPATIAL_INDEX_EVENTS;
+      for (int horizon : horizons)
+      {
+         int   steps     = horizon + 2000;
+         int[] durations = { 1, horizon / 8, horizon - (horizon / 8) - 1 };
+         float[][] events = new float[steps][eventDimensions];
+         int[] x = new int[steps];
+         int[] y = new int[steps];
+         int cx = 0, cy = 0;
+         for (int t = 0; t < steps; t++)
+         {
+            cx = (cx + random.nextInt(3) + worldSize - 1) % worldSize;
+            cy = (cy + random.nextInt(3) + worldSize - 1) % worldSize;
+            x[t] = cx;
+            y[t] = cy;
+            events[t][random.nextInt(eventDimensions)] = 1.0f;
+         }
+         Morphognostic[] morphognostics = new Morphognostic[2];
+         double[] us = new double[2];
+         for (int trial = 0; trial < 2; trial++)
+         {
+            for (int i = 0; i < 2; i++)
+            {
+               Morphognostic.SPATIAL_INDEX_EVENTS = (i == 0) ? Integer.MAX_VALUE : threshold;
+               Morphognostic m = new Morphognostic(Orientation.NORTH, eventDimensions,
+                                                   dimensions.length, dimensions, durations);
+               Morphognostic.SPATIAL_INDEX_EVENTS = threshold;
+               m.worldWidth = m.worldHeight = worldSize;
+               m.lazyUpdate = false;
+               for (int t = 0; t < horizon; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+               }
+               long start = System.nanoTime();
+               for (int t = horizon; t < steps; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+               }
+               us[i]             = ((double)(System.nanoTime() - start) / 1.0e3) / (double)(steps - horizon);
+               morphognostics[i] = m;
+            }
+         }
+         if (!verifyUpdate(morphognostics))
+         {
+            System.err.println("Spatially indexed update differs: horizon=" + horizon);
+            System.exit(1);
+         }
+         System.out.printf("  horizon=%d: scan=%.1f indexed=%.1f (x%.1f) verified%n",
+                           horizon, us[0], us[1], us[0] / us[1]);
+      }
+   }
+
+
+   // Lazy update: an agent walking a wrapped world moves every step, so every neighborhood is fully updated,
+   // and each step is searched for equivalent metamorphs, as training does to merge them.
+   // Bounded compares reject most metamorphs on their first neighborhoods, so lazily updated
+   // morphognostics skip the updates of neighborhoods that are never reached.
+   public static void lazyBenchmark()
+   {
+      int     worldSize       = 64;
+      int     eventDimensions = 16;
+      int     steps           = 2000;
+      int[][] dimensions      = { { 3, 1 }, { 9, 3 }, { 27, 9 } };
+      int[][] durationSets    = { { 1, 8, 56 }, { 1, 32, 224 }, { 1, 128, 896 } };
+
+      System.out.println("Lazy update (microseconds/step, update and equivalence search of " + DB_SIZE +
+                         " metamorphs, wrapped " + worldSize + "x" + worldSize + " world):");
+      for (int[] durations : durationSets)
+      {
+         // Walk, the first steps of which fill the metamorphs.
+         int       horizon = durations[0] + durations[1] + durations[2];
+         int       n       = horizon + DB_SIZE + steps;
+         float[][] events  = new float[n][eventDimensions];
+         int[]     x       = new int[n];
+         int[]     y       = new int[n];
+         int       cx      = 0, cy = 0;
+         for (int t = 0; t < n; t++)
+         {
+            cx = (cx + random.nextInt(3) + worldSize - 1) % worldSize;
+            cy = (cy + random.nextInt(3) + worldSize - 1) % worldSize;
+            x[t] = cx;
+            y[t] = cy;
+            events[t][random.nextInt(eventDimensions)] = 1.0f;
+         }
+         ArrayList<Metamorph> metamorphs = new ArrayList<Metamorph>();
+         Morphognostic        walker     = new Morphognostic(Orientation.NORTH, eventDimensions,
+                                                             dimensions.length, dimensions, durations);
+         walker.worldWidth = walker.worldHeight = worldSize;
+         for (int t = 0; t < horizon + DB_SIZE; t++)
+         {
+            walker.update(events[t], x[t], y[t], true);
+            if (t >= horizon)
+            {
+               metamorphs.add(new Metamorph(walker.getSignature(MorphognosticSignature.DENSE), 0, 0.0f));
+            }
+         }
+
+         // Revisit the walk, matching the metamorphs of its own steps.
+         Morphognostic[] morphognostics = new Morphognostic[2];
+         double[] us      = new double[2];
+         int[]    matches = new int[2];
+         for (int trial = 0; trial < 2; trial++)
+         {
+            for (int i = 0; i < 2; i++)
+            {
+               Morphognostic m = new Morphognostic(Orientation.NORTH, eventDimensions,
+                                                   dimensions.length, dimensions, durations);
+               m.worldWidth = m.worldHeight = worldSize;
+               m.lazyUpdate = (i == 1);
+               for (int t = 0; t < horizon; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+               }
+               matches[i] = 0;
+               long start = System.nanoTime();
+               for (int t = horizon; t < horizon + steps; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+                  for (Metamorph metamorph : metamorphs)
+                  {
+                     if (m.compare(metamorph.signature, 0.0f) == 0.0f)
+                     {
+                        matches[i]++;
+                        break;
+                     }
+                  }
+               }
+               us[i]             = ((double)(System.nanoTime() - start) / 1.0e3) / (double)steps;
+               morphognostics[i] = m;
+            }
+         }
+         if ((matches[0] != matches[1]) || (morphognostics[0].compare(morphognostics[1]) != 0.0f))
+         {
+            System.err.println("Lazy update differs: horizon=" + horizon);
+            System.exit(1);
+         }
+         System.out.printf("  durations=%d,%d,%d: eager=%.1f lazy=%.1f (x%.1f) matched=%d skipped=%.2f/step verified%n",
+                           durations[0], durations[1], durations[2], us[0], us[1], us[0] / us[1], matches[1],
+                           (double)morphognostics[1].skippedNeighborhoodUpdates / (double)(horizon + steps));
+      }
+   }
+
+
+   // Parallel update: an agent walking a wrapped world fully updates every neighborhood each step,
+   // serially and split across fork/join pools, verifying identical values.
+   // Configurations range from below the parallel work threshold, which stay serial, to wide and long ones.
+   public static void parallelBenchmark()
+   {
+      int worldSize       = 256;
+      int eventDimensions = 16;
+      int steps           = 500;
+
+      // Configurations: { neighborhood dimension, sector dimension, duration } by neighborhood.
+      int[][][] configurations =
+      {
+         { { 3, 1, 1 }, { 3, 1, 2 }, { 3, 1, 4 } },
+         { { 3, 1, 1 }, { 9, 3, 64 }, { 27, 9, 448 } },
+         { { 9, 3, 256 }, { 9, 3, 256 }, { 9, 3, 256 }, { 9, 3, 256 }, { 9, 3, 256 }, { 9, 3, 256 }, { 9, 3, 256 }, { 9, 3, 256 } },
+         { { 33, 11, 1024 }, { 33, 11, 1024 }, { 33, 11, 1024 }, { 33, 11, 1024 } },
+         { { 3, 1, 1 }, { 9, 3, 512 }, { 27, 9, 1024 }, { 81, 27, 2048 } }
+      };
+
+      // Pool parallelism levels, doubling up to the processors available, at least 2.
+      int processors = Runtime.getRuntime().availableProcessors();
+      ArrayList<Integer> levels = new ArrayList<Integer>();
+      for (int p = 1; p <= Math.max(2, processors); p *= 2)
+      {
+         levels.add(p);
+      }
+      System.out.println("Parallel update (microseconds/update, " + processors + " processors, work threshold " +
+                         Morphognostic.PARALLEL_UPDATE_THRESHOLD + ", wrapped " + worldSize + "x" + worldSize + " world):");
+      for (int[][] configuration : configurations)
+      {
+         int     numNeighborhoods = configuration.length;
+         int[][] dimensions       = new int[numNeighborhoods][2];
+         int[]   durations        = new int[numNeighborhoods];
+         int     horizon          = 0;
+         for (int i = 0; i < numNeighborhoods; i++)
+         {
+            dimensions[i][0] = configuration[i][0];
+            dimensions[i][1] = configuration[i][1];
+            durations[i]     = configuration[i][2];
+            horizon         += durations[i];
+         }
+         int       n      = horizon + steps;
+         float[][] events = new float[n][eventDimensions];
+         int[]     x      = new int[n];
+         int[]     y      = new int[n];
+         int       cx     = 0, cy = 0;
+         for (int t = 0; t < n; t++)
+         {
+            cx = (cx + random.nextInt(3) + worldSize - 1) % worldSize;
+            cy = (cy + random.nextInt(3) + worldSize - 1) % worldSize;
+            x[t] = cx;
+            y[t] = cy;
+            events[t][random.nextInt(eventDimensions)] = 1.0f;
+         }
+
+         // Serial, then each pool, best of trials.
+         Morphognostic[] morphognostics = new Morphognostic[levels.size() + 1];
+         double[] us   = new double[morphognostics.length];
+         int      work = 0;
+         for (int trial = 0; trial < 3; trial++)
+         {
+            for (int i = 0; i < morphognostics.length; i++)
+            {
+               Morphognostic m = new Morphognostic(Orientation.NORTH, eventDimensions,
+                                                   numNeighborhoods, dimensions, durations);
+               m.worldWidth     = m.worldHeight = worldSize;
+               m.lazyUpdate     = false;
+               m.parallelUpdate = (i > 0);
+               ForkJoinPool pool = null;
+               if (i > 0)
+               {
+                  pool = new ForkJoinPool(levels.get(i - 1));
+                  Morphognostic.updatePool = pool;
+               }
+               for (int t = 0; t < horizon; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+               }
+               long start = System.nanoTime();
+               for (int t = horizon; t < n; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+               }
+               double time = ((double)(System.nanoTime() - start) / 1.0e3) / (double)steps;
+               us[i]             = (trial == 0) ? time : Math.min(us[i], time);
+               morphognostics[i] = m;
+               if (pool != null)
+               {
+                  pool.shutdown();
+               }
+               work = 0;
+               for (Morphognostic.Neighborhood neighborhood : m.neighborhoods)
+               {
+                  work += neighborhood.getUpdateWork();
+               }
+            }
+         }
+         Morphognostic.updatePool = ForkJoinPool.commonPool();
+         if (!verifyUpdate(morphognostics))
+         {
+            System.err.println("Parallel update differs: neighborhoods=" + numNeighborhoods);
+            System.exit(1);
+         }
+         StringBuilder description = new StringBuilder();
+         for (int i = 0; i < numNeighborhoods; i++)
+         {
+            description.append(((i > 0) ? "," : "") + dimensions[i][0] + "/" + dimensions[i][1] + "x" + durations[i]);
+         }
+         System.out.printf("  %s work=%d: serial=%.1f", description.toString(), work, us[0]);
+         for (int i = 0; i < levels.size(); i++)
+         {
+            System.out.printf(" p%d=%.1f (x%.2f)", levels.get(i), us[i + 1], us[0] / us[i + 1]);
+         }
+         System.out.println(" verified");
+      }
+   }
+
+
+   // Verify sector lookup: for every neighborhood of dimension up to 31 and every sector dimension,
+   // the sector tables must give the sector found by exhaustive search for every event displacement
+   // within and beyond the neighborhood, and cell lookups must give that sector for all cells in a cell.
+   public static void verifySectors()
+   {
+      int  maxDimension = 31;
+      int  margin       = 2;
+      int  cx           = 5, cy = -3;
+      long checks       = 0;
+
+      System.out.println("Sector lookup (exhaustive check of neighborhoods up to " + maxDimension + "x" + maxDimension + "):");
+      for (int dimension = 1; dimension <= maxDimension; dimension++)
+      {
+         for (int sectorDimension = 1; sectorDimension <= dimension; sectorDimension++)
+         {
+            int[][] dimensions = { { dimension, sectorDimension } };
+            int[]   durations  = { 1 };
+            Morphognostic m    = new Morphognostic(Orientation.NORTH, 1, 1, dimensions, durations);
+            Morphognostic.Neighborhood n = m.neighborhoods[0];
+            int r = (dimension / 2) + margin;
+            for (int ex = cx - r; ex <= cx + r; ex++)
+            {
+               for (int ey = cy - r; ey <= cy + r; ey++)
+               {
+                  Morphognostic.Neighborhood.Sector s = findSector(n, ex, ey, cx, cy);
+                  if (n.getSector(ex, ey, cx, cy, false) != s)
+                  {
+                     System.err.println("Sector lookup differs: dimension=" + dimension + "/" + sectorDimension +
+                                        " event=" + (ex - cx) + "," + (ey - cy));
+                     System.exit(1);
+                  }
+                  checks++;
+                  for (int size = 2; size <= 4; size *= 2)
+                  {
+                     Morphognostic.Neighborhood.Sector c = n.getCellSector(ex, ey, size, cx, cy, false);
+                     if (c == null)
+                     {
+                        continue;
+                     }
+                     for (int x = ex; x < ex + size; x++)
+                     {
+                        for (int y = ey; y < ey + size; y++)
+                        {
+                           if (findSector(n, x, y, cx, cy) != c)
+                           {
+                              System.err.println("Cell sector lookup differs: dimension=" + dimension + "/" + sectorDimension +
+                                                 " cell=" + (ex - cx) + "," + (ey - cy) + " size=" + size);
+                              System.exit(1);
+                           }
+                        }
+                     }
+                     checks++;
+                  }
+               }
+            }
+         }
+      }
+      System.out.println("  " + checks + " lookups verified");
+   }
+
+
+   // Find closest sector in which event occurred by searching all sectors, center first.
+   private static Morphognostic.Neighborhood.Sector findSector(Morphognostic.Neighborhood n, int ex, int ey, int cx, int cy)
+   {
+      Morphognostic.Neighborhood.Sector s = n.sectors[n.sectors.length / 2][n.sectors.length / 2];
+      int sx   = cx + n.dx + s.dx + (s.dimension / 2);
+      int sy   = cy + n.dy + s.dy + (s.dimension / 2);
+      int dist = Math.abs(sx - ex) + Math.abs(sy - ey);
+
+      for (int x = 0, x2 = n.sectors.length; x < x2; x++)
+      {
+         for (int y = 0, y2 = n.sectors.length; y < y2; y++)
+         {
+            Morphognostic.Neighborhood.Sector s2 = n.sectors[x][y];
+            int sx2   = cx + n.dx + s2.dx + (s2.dimension / 2);
+            int sy2   = cy + n.dy + s2.dy + (s2.dimension / 2);
+            int dist2 = Math.abs(sx2 - ex) + Math.abs(sy2 - ey);
+            if (dist2 < dist)
+            {
+               dist = dist2;
+               s    = s2;
+            }
+         }
+      }
+      return(s);
+   }
+
+
+   // Verify save/load: morphognostics of an agent walking a wrapped world, with exact and inexact events
+   // and mapped neighborhood events, are loaded from a buffer, a stream and a mapped file.
+   // Each copy must resave identically and keep updating identically to the original,
+   // and corrupting any byte of the checksummed block or truncating the buffer must fail the load.
+   public static void verifySaveLoad()
+   {
+      int     worldSize       = 32;
+      int     eventDimensions = 8;
+      int     steps           = 100;
+      int[][] dimensions      = { { 3, 1 }, { 3, 1 }, { 9, 3 }, { 27, 9 } };
+      int[]   durations       = { 1, 1, 8, 32 };
+
+      // Neighborhood event maps: none, or alternating dimensions for the outer neighborhoods.
+      boolean[][][] maps = { null, new boolean[dimensions.length][eventDimensions] };
+      for (int i = 0; i < dimensions.length; i++)
+      {
+         for (int d = 0; d < eventDimensions; d++)
+         {
+            maps[1][i][d] = (i < 2) || ((d % 2) == (i % 2));
+         }
+      }
+      System.out.println("Save/load (round trips of wrapped " + worldSize + "x" + worldSize + " world walks):");
+      try
+      {
+         File file = File.createTempFile("morphognostic", ".dat");
+         file.deleteOnExit();
+         for (boolean[][] map : maps)
+         {
+            for (int inexact = 0; inexact < 2; inexact++)
+            {
+               Morphognostic m = new Morphognostic(Orientation.NORTH, eventDimensions, map,
+                                                   dimensions.length, dimensions, durations);
+               m.worldWidth = m.worldHeight = worldSize;
+               int       horizon = 0;
+               for (int t : durations)
+               {
+                  horizon += t;
+               }
+               float[][] events = new float[horizon + steps][eventDimensions];
+               int[]     x      = new int[events.length];
+               int[]     y      = new int[events.length];
+               int       cx     = 0, cy = 0;
+               for (int t = 0; t < events.length; t++)
+               {
+                  cx = (cx + random.nextInt(3) + worldSize - 1) % worldSize;
+                  cy = (cy + random.nextInt(3) + worldSize - 1) % worldSize;
+                  x[t] = cx;
+                  y[t] = cy;
+                  for (int d = 0; d < eventDimensions; d++)
+                  {
+                     if (random.nextInt(4) == 0)
+                     {
+                        events[t][d] = ((inexact == 1) && random.nextBoolean()) ? 0.3f : 1.0f;
+                     }
+                  }
+               }
+               for (int t = 0; t < horizon; t++)
+               {
+                  m.update(events[t], x[t], y[t], true);
+               }
+               ByteBuffer bytes = m.toByteBuffer();
+               byte[]     saved = new byte[bytes.limit()];
+               bytes.get(saved);
+
+               // Load from buffer, stream and mapped file.
+               Morphognostic[] morphognostics = new Morphognostic[4];
+               morphognostics[0] = m;
+               morphognostics[1] = Morphognostic.load(ByteBuffer.wrap(saved));
+               ByteArrayOutputStream stream = new ByteArrayOutputStream();
+               m.save(new DataOutputStream(stream));
+               morphognostics[2] = Morphognostic.load(new DataInputStream(new ByteArrayInputStream(stream.toByteArray())));
+               m.save(file.getPath());
+               morphognostics[3] = Morphognostic.load(file.getPath());
+               for (int i = 1; i < morphognostics.length; i++)
+               {
+                  ByteBuffer resaved = morphognostics[i].toByteBuffer();
+                  if (!resaved.equals(ByteBuffer.wrap(saved)))
+                  {
+                     System.err.println("Loaded morphognostic resaves differently: copy=" + i);
+                     System.exit(1);
+                  }
+                  morphognostics[i].worldWidth = morphognostics[i].worldHeight = worldSize;
+               }
+
+               // Continue walk.
+               for (int t = horizon; t < events.length; t++)
+               {
+                  for (Morphognostic morphognostic : morphognostics)
+                  {
+                     morphognostic.update(events[t], x[t], y[t], true);
+                  }
+                  for (int i = 1; i < morphognostics.length; i++)
+                  {
+                     if (!verifyUpdate(new Morphognostic[] { m, morphognostics[i] }))
+                     {
+                        System.err.println("Loaded morphognostic updates differently: copy=" + i + " step=" + t);
+                        System.exit(1);
+                     }
+                  }
+               }
+
+               // Corrupt each byte of the block, and truncate.
+               for (int i = 12; i < saved.length; i++)
+               {
+                  saved[i] ^= 0x10;
+                  try
+                  {
+                     Morphognostic.load(ByteBuffer.wrap(saved));
+                     System.err.println("Corrupted morphognostic loaded: byte=" + i);
+                     System.exit(1);
+                  }
+                  catch (IOException e) {}
+                  saved[i] ^= 0x10;
+               }
+               try
+               {
+                  Morphognostic.load(ByteBuffer.wrap(saved, 0, saved.length - 1));
+                  System.err.println("Truncated morphognostic loaded");
+                  System.exit(1);
+               }
+               catch (IOException e) {}
+               System.out.println("  " + ((map == null) ? "unmapped" : "mapped") + " " +
+                                  ((inexact == 1) ? "inexact" : "exact") + " events: " + saved.length +
+                                  " bytes, buffer/stream/file loads and " + (saved.length - 12) + " corruptions verified");
+            }
+         }
+         file.delete();
+      }
+      catch (IOException e)
+      {
+         System.err.println("Save/load failed: " + e.getMessage());
+         System.exit(1);
+      }
+   }
+
+
+   // Verify spatial event index: an agent walks wrapped worlds, one odd-sized and smaller than the outer neighborhood,
+   // updating morphognostics with and without the spatial event index. Their sector values are checked against
+   // a reference counting each event of a neighborhood's time frame into the sector closest to it, found by
+   // exhaustive search, at its nearest displacement on the torus.
+   public static void verifySpatialIndex()
+   {
+      int[]   worldSizes      = { 21, 64 };
+      int     eventDimensions = 8;
+      int[][] dimensions      = { { 3, 1 }, { 9, 3 }, { 33, 11 } };
+      int[]   durations       = { 1, 256, 1536 };
+      int     horizon         = durations[0] + durations[1] + durations[2];
+      int     steps           = 500;
+      int     interval        = 50;
+
+      System.out.println("Spatial event index (toroidal reference, durations " + durations[0] + "," + durations[1] +
+                         "," + durations[2] + ", index threshold " + Morphognostic.SPATIAL_INDEX_EVENTS + " events):");
+      int threshold = Morphognostic.SPATIAL_INDEX_EVENTS;
+      for (int worldSize : worldSizes)
+      {
+         int       n      = horizon + steps;
+         float[][] events = new float[n][eventDimensions];
+         int[]     x      = new int[n];
+         int[]     y      = new int[n];
+         int       cx     = 0, cy = 0;
+         for (int t = 0; t < n; t++)
+         {
+            cx = (cx + random.nextInt(3) + worldSize - 1) % worldSize;
+            cy = (cy + random.nextInt(3) + worldSize - 1) % worldSize;
+            x[t] = cx;
+            y[t] = cy;
+            events[t][random.nextInt(eventDimensions)] = 1.0f;
+         }
+         Morphognostic[] morphognostics = new Morphognostic[2];
+         for (int i = 0; i < 2; i++)
+         {
+            Morphognostic.SPATIAL_INDEX_EVENTS = (i == 0) ? Integer.MAX_VALUE : threshold;
+            morphognostics[i] = new Morphognostic(Orientation.NORTH, eventDimensions,
+                                                  dimensions.length, dimensions, durations);
+            Morphognostic.SPATIAL_INDEX_EVENTS = threshold;
+            morphognostics[i].worldWidth = morphognostics[i].worldHeight = worldSize;
+            morphognostics[i].lazyUpdate = false;
+         }
+         int checks = 0;
+         for (int t = 0; t < n; t++)
+         {
+            for (Morphognostic m : morphognostics)
+            {
+               m.update(events[t], x[t], y[t], true);
+            }
+            if ((t < horizon) || (((t - horizon) % interval) != 0))
+            {
+               continue;
+            }
+
+            // Reference sector values as of event time t.
+            float[] reference = new float[morphognostics[0].sectorValues.length];
+            for (Morphognostic.Neighborhood neighborhood : morphognostics[0].neighborhoods)
+            {
+               int[] counts = new int[reference.length];
+               for (int s = Math.max(0, t - neighborhood.epoch - neighborhood.duration + 1);
+                    s <= t - neighborhood.epoch; s++)
+               {
+                  int ox = Math.floorMod(x[s] - x[t], worldSize);
+                  int oy = Math.floorMod(y[s] - y[t], worldSize);
+                  if ((ox * 2) > worldSize)
+                  {
+                     ox -= worldSize;
+                  }
+                  if ((oy * 2) > worldSize)
+                  {
+                     oy -= worldSize;
+                  }
+                  Morphognostic.Neighborhood.Sector sector = findSector(neighborhood, x[t] + ox, y[t] + oy, x[t], y[t]);
+                  for (int d = 0; d < eventDimensions; d++)
+                  {
+                     counts[sector.offset + d] += (int)events[s][d];
+                  }
+               }
+               for (int i = neighborhood.offset, j = neighborhood.offset + neighborhood.size; i < j; i++)
+               {
+                  reference[i] = (float)counts[i] / (float)neighborhood.duration;
+               }
+            }
+            for (int i = 0; i < 2; i++)
+            {
+               Morphognostic m = morphognostics[i];
+               m.touch();
+               for (int j = 0; j < reference.length; j++)
+               {
+                  if (Float.floatToIntBits(m.sectorValues[j]) != Float.floatToIntBits(reference[j]))
+                  {
+                     System.err.println("Spatial update differs from reference: world=" + worldSize + " step=" + t +
+                                        " " + ((i == 0) ? "scan" : "indexed"));
+                     System.exit(1);
+                  }
+               }
+            }
+            checks++;
+         }
+         System.out.println("  " + worldSize + "x" + worldSize + " world: scan and indexed updates at " + checks +
+                            " steps verified");
+      }
+   }
+
+
+   // Are shift register values identical to generic values, and counts to incremental counts?
+   private static boolean verifyUpdate(Morphognostic[] morphognostics)
+   {
+      for (Morphognostic m : morphognostics)
+      {
+         m.touch();
+      }
+      float[] values = morphognostics[0].sectorValues;
+
+      for (int i = 1; i < morphognostics.length; i++)
+      {
+         float[] values2 = morphognostics[i].sectorValues;
+         for (int j = 0; j < values.length; j++)
+         {
+            if (Float.floatToIntBits(values[j]) != Float.floatToIntBits(values2[j]))
+            {
+               return(false);
+            }
+         }
+      }
+      MorphognosticSignature s1 = morphognostics[0].getSignature(MorphognosticSignature.COUNTS);
+      MorphognosticSignature s2 = morphognostics[1].getSignature(MorphognosticSignature.COUNTS);
+      return((s1.encoding == s2.encoding) && (s1.compare(s2) == 0.0f));
+   }
+
+
+   // Bytes of encoded signature values.
+   public static int getValueBytes(MorphognosticSignature signature)
+   {
+      int size = signature.size();
+
+      switch (signature.encoding)
+      {
+      case MorphognosticSignature.BINARY:
+         return(((size + 63) / 64) * 8);
+
+      case MorphognosticSignature.COUNTS:
+         return(signature.getCountBytes() * size);
+
+      default:
+         return(size * 4);
+      }
+   }
+
+
+   // Million compares per second since start time.
+   private static double rate(long start)
+   {
+      double seconds = (double)(System.nanoTime() - start) / 1.0e9;
+
+      return(((double)PASSES * (double)DB_SIZE) / seconds / 1.0e6);
+   }
+
+
+   // Main.
+   public static void main(String[] args)
+   {
+      boolean compare      = false;
+      boolean signatures   = false;
+      boolean update       = false;
+      boolean pyramid      = false;
+      boolean sparse       = false;
+      boolean spatial      = false;
+      boolean orientations = false;
+      boolean lazy         = false;
+      boolean parallel     = false;
+      boolean verify       = false;
+
+      for (int i = 0; i < args.length; i++)
+      {
+         if (args[i].equals("-compare"))
+         {
+            compare = true;
+            continue;
+         }
+         if (args[i].equals("-signatures"))
+         {
+            signatures = true;
+            continue;
+         }
+         if (args[i].equals("-update"))
+         {
+            update = true;
+            continue;
+         }
+         if (args[i].equals("-pyramid"))
+         {
+            pyramid = true;
+            continue;
+         }
+         if (args[i].equals("-sparse"))
+         {
+            sparse = true;
+            continue;
+         }
+         if (args[i].equals("-spatial"))
+         {
+            spatial = true;
+            continue;
+         }
+         if (args[i].equals("-orientations"))
+         {
+            orientations = true;
+            continue;
+         }
+         if (args[i].equals("-lazy"))
+         {
+            lazy = true;
+            continue;
+         }
+         if (args[i].equals("-parallel"))
+         {
+            parallel = true;
+            continue;
+         }
+         if (args[i].equals("-verify"))
+         {
+            verify = true;
+            continue;
+         }
+         if (args[i].equals("-randomSeed"))
+         {
+            i++;
+            if (i >= args.length)
+            {
+               System.err.println("Invalid randomSeed option");
+               System.err.println(Usage);
+               System.exit(1);
+            }
+            try
+            {
+               random = new Random(Integer.parseInt(args[i]));
+            }
+            catch (NumberFormatException e) {
+               System.err.println("Invalid randomSeed option");
+               System.err.println(Usage);
+               System.exit(1);
+            }
+            continue;
+         }
+         if (args[i].equals("-help") || args[i].equals("-h") || args[i].equals("-?"))
+         {
+            System.out.println(Usage);
+            System.exit(0);
+         }
+         System.err.println("Invalid option: " + args[i]);
+         System.err.println(Usage);
+         System.exit(1);
+      }
+      if (!compare && !signatures && !update && !pyramid && !sparse && !spatial && !orientations && !lazy && !parallel && !verify)
+      {
+         compare = signatures = update = pyramid = sparse = spatial = orientations = lazy = parallel = verify = true;
+      }
+      if (compare)
+      {
+         compareBenchmark();
+      }
+      if (signatures)
+      {
+         signatureBenchmark();
+      }
+      if (update)
+      {
+         updateBenchmark();
+      }
+      if (pyramid)
+      {
+         pyramidBenchmark();
+      }
+      if (sparse)
+      {
+         sparseBenchmark();
+      }
+      if (spatial)
+      {
+         spatialBenchmark();
+      }
+      if (orientations)
+      {
+         orientationBenchmark();
+      }
+      if (lazy)
+      {
+         lazyBenchmark();
+      }
+      if (parallel)
+      {
+         parallelBenchmark();
+      }
+      if (verify)
+      {
+         verifySectors();
+         verifySaveLoad();
+         verifySpatialIndex();
+      }
+      System.exit(0);
+   }
+}
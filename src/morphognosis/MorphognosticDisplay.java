@@ -50,7 +50,7 @@ public class MorphognosticDisplay extends JPanel implements ItemListener, Action
       morphognosticPanel.add(neighborhoodPanel, BorderLayout.NORTH);
       neighborhoodPanel.add(new JLabel("Neighborhood:"));
       neighborhoodChoice = new Choice();
-      for (int i = 0, j = morphognostic.neighborhoods.size(); i < j; i++)
+      for (int i = 0, j = morphognostic.neighborhoods.length; i < j; i++)
       {
          neighborhoodChoice.add(i + " ");
       }
@@ -62,7 +62,7 @@ public class MorphognosticDisplay extends JPanel implements ItemListener, Action
       if (n != -1)
       {
          sectorChoice.add("all");
-         for (int x = 0, d = morphognostic.neighborhoods.get(n).sectors.length; x < d; x++)
+         for (int x = 0, d = morphognostic.neighborhoods[n].sectors.length; x < d; x++)
          {
             for (int y = 0; y < d; y++)
             {
@@ -94,7 +94,7 @@ public class MorphognosticDisplay extends JPanel implements ItemListener, Action
          if (n != -1)
          {
             sectorChoice.add("all");
-            for (int x = 0, d = morphognostic.neighborhoods.get(n).sectors.length; x < d; x++)
+            for (int x = 0, d = morphognostic.neighborhoods[n].sectors.length; x < d; x++)
             {
                for (int y = 0; y < d; y++)
                {
@@ -142,7 +142,7 @@ public class MorphognosticDisplay extends JPanel implements ItemListener, Action
          Dimension dim  = Toolkit.getDefaultToolkit().getScreenSize();
          int       offx = new Random().nextInt((int)((float)dim.width * 0.1f));
          int       offy = new Random().nextInt((int)((float)dim.height * 0.1f));
-         for (int x2 = 0, d = morphognostic.neighborhoods.get(n).sectors.length; x2 < d; x2++)
+         for (int x2 = 0, d = morphognostic.neighborhoods[n].sectors.length; x2 < d; x2++)
          {
             for (int y2 = 0; y2 < d; y2++)
             {
@@ -194,7 +194,7 @@ public class MorphognosticDisplay extends JPanel implements ItemListener, Action
             x          = Integer.parseInt(j[0]);
             y          = Integer.parseInt(j[1]);
          }
-         for (int x2 = 0, d = morphognostic.neighborhoods.get(n).sectors.length; x2 < d; x2++)
+         for (int x2 = 0, d = morphognostic.neighborhoods[n].sectors.length; x2 < d; x2++)
          {
             for (int y2 = 0; y2 < d; y2++)
             {
@@ -224,6 +224,13 @@ public class MorphognosticDisplay extends JPanel implements ItemListener, Action
    }
 
 
+   // Publish snapshot of morphognostic for sector displays, from the updating thread.
+   public void publishSnapshot()
+   {
+      morphognostic.publishSnapshot();
+   }
+
+
    // Close.
    public void close()
    {
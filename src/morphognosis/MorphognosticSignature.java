@@ -0,0 +1,777 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+package morphognosis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Morphognostic signature:
+ * Immutable snapshot of the rectified sector values of a morphognostic,
+ * laid out as morphognostic sector storage: neighborhoods in order,
+ * sectors in rectified order (row by row of y, then x), then event dimensions.
+ * The neighborhood configuration is shared by signatures through a configuration id.
+ *
+ * Values are encoded densely as floats, or as integer event counts in bytes or shorts
+ * which are scaled by 1/duration only when a value is read or a distance is weighted,
+ * or, when all values are 0 or 1, as bits compared by Hamming distance.
+ */
+public class MorphognosticSignature
+{
+   // Encodings.
+   public static final int DENSE  = 0;
+   public static final int COUNTS = 1;
+   public static final int BINARY = 2;
+
+   // Configuration id.
+   public final int configuration;
+
+   // Encoding.
+   public final int encoding;
+
+   // Dense values, counts in bytes or shorts, or bits: not to be modified.
+   final float[] values;
+   final byte[]  byteCounts;
+   final short[] shortCounts;
+   final long[]  bits;
+
+   // Fingerprint of values, and hash of configuration and values.
+   public final long fingerprint;
+   public final int  hash;
+
+   // Constructors.
+   MorphognosticSignature(int configuration, float[] values)
+   {
+      this(configuration, DENSE, values, null, null, null);
+   }
+
+
+   MorphognosticSignature(int configuration, byte[] counts)
+   {
+      this(configuration, COUNTS, null, counts, null, null);
+   }
+
+
+   MorphognosticSignature(int configuration, short[] counts)
+   {
+      this(configuration, COUNTS, null, null, counts, null);
+   }
+
+
+   MorphognosticSignature(int configuration, long[] bits)
+   {
+      this(configuration, BINARY, null, null, null, bits);
+   }
+
+
+   private MorphognosticSignature(int configuration, int encoding, float[] values,
+                                  byte[] byteCounts, short[] shortCounts, long[] bits)
+   {
+      this.configuration = configuration;
+      this.encoding      = encoding;
+      this.values        = values;
+      this.byteCounts    = byteCounts;
+      this.shortCounts   = shortCounts;
+      this.bits          = bits;
+
+      // Fingerprint decoded values so that encodings of equal values match.
+      Configuration c = getConfiguration();
+      long          f = FINGERPRINT_SEED;
+      for (int n = 0; n < c.NUM_NEIGHBORHOODS; n++)
+      {
+         for (int i = c.offsets[n], j = i + c.getSize(n); i < j; i++)
+         {
+            f = fingerprint(f, decode(i, c.NEIGHBORHOOD_DURATIONS[n]));
+         }
+      }
+      fingerprint = fingerprint(f);
+      hash        = (configuration * 31) + (int)(fingerprint ^ (fingerprint >>> 32));
+   }
+
+
+   // Fingerprint: 64-bit hash of a sequence of values, identical for values at zero distance.
+   public static final long FINGERPRINT_SEED = 0x9E3779B97F4A7C15L;
+
+   // Mix value into fingerprint.
+   public static long fingerprint(long f, float v)
+   {
+      // Zero of either sign hashes alike.
+      long bits = (v == 0.0f) ? 0L : (long)Float.floatToIntBits(v);
+
+      return((f ^ bits) * 0xBF58476D1CE4E5B9L + 0x94D049BB133111EBL);
+   }
+
+
+   // Finish fingerprint.
+   public static long fingerprint(long f)
+   {
+      f ^= f >>> 33;
+      f *= 0xFF51AFD7ED558CCDL;
+      f ^= f >>> 33;
+      f *= 0xC4CEB9FE1A85EC53L;
+      f ^= f >>> 33;
+      return(f);
+   }
+
+
+   // Get configuration.
+   public Configuration getConfiguration()
+   {
+      return(Configuration.get(configuration));
+   }
+
+
+   // Number of values.
+   public int size()
+   {
+      return(getConfiguration().size);
+   }
+
+
+   // Get value by index.
+   public float getValue(int index)
+   {
+      Configuration c = getConfiguration();
+
+      return(decode(index, c.NEIGHBORHOOD_DURATIONS[c.getNeighborhood(index)]));
+   }
+
+
+   // Get value of neighborhood sector event dimension.
+   public float getValue(int neighborhood, int x, int y, int dimension)
+   {
+      Configuration c = getConfiguration();
+      int           d = c.sectors[neighborhood];
+
+      return(decode(c.offsets[neighborhood] + (((y * d) + x) * c.eventDimensions) + dimension,
+                    c.NEIGHBORHOOD_DURATIONS[neighborhood]));
+   }
+
+
+   // Decode value at index of neighborhood with given duration.
+   float decode(int index, int duration)
+   {
+      if (values != null)
+      {
+         return(values[index]);
+      }
+      else if (byteCounts != null)
+      {
+         return((float)byteCounts[index] / (float)duration);
+      }
+      else if (shortCounts != null)
+      {
+         return((float)shortCounts[index] / (float)duration);
+      }
+      else
+      {
+         return((float)((bits[index >>> 6] >>> index) & 1L));
+      }
+   }
+
+
+   // Bytes per count of count encoding.
+   public int getCountBytes()
+   {
+      return((byteCounts != null) ? 1 : 2);
+   }
+
+
+   // Number of bits needed to pack values.
+   static int getBitsLength(int size)
+   {
+      return((size + 63) >>> 6);
+   }
+
+
+   // Hamming distance of bits with own bits, stopping once it exceeds bound.
+   int hammingDistance(long[] bits, float bound)
+   {
+      int c = 0;
+
+      for (int i = 0; i < bits.length; i++)
+      {
+         c += Long.bitCount(bits[i] ^ this.bits[i]);
+         if (c > bound)
+         {
+            break;
+         }
+      }
+      return(c);
+   }
+
+
+   // Sum of absolute differences of counts with own counts over range.
+   int countDistance(int[] counts, int offset, int length)
+   {
+      if (byteCounts != null)
+      {
+         return(Distance.l1(counts, offset, byteCounts, offset, length));
+      }
+      else
+      {
+         return(Distance.l1(counts, offset, shortCounts, offset, length));
+      }
+   }
+
+
+   // Compare.
+   public float compare(MorphognosticSignature s)
+   {
+      // Signatures of different configurations do not match.
+      if (configuration != s.configuration)
+      {
+         return(Float.MAX_VALUE);
+      }
+      if ((encoding == DENSE) && (s.encoding == DENSE))
+      {
+         return(Distance.l1(values, 0, s.values, 0, values.length));
+      }
+      if ((encoding == BINARY) && (s.encoding == BINARY))
+      {
+         return((float)hammingDistance(s.bits, Float.MAX_VALUE));
+      }
+
+      // Weight count distances of each neighborhood by its duration.
+      Configuration c = getConfiguration();
+      float         d = 0.0f;
+      for (int n = 0; n < c.NUM_NEIGHBORHOODS; n++)
+      {
+         int o        = c.offsets[n];
+         int size     = c.getSize(n);
+         int duration = c.NEIGHBORHOOD_DURATIONS[n];
+         if ((byteCounts != null) && (s.byteCounts != null))
+         {
+            d += (float)Distance.l1(byteCounts, o, s.byteCounts, o, size) / (float)duration;
+         }
+         else if ((shortCounts != null) && (s.shortCounts != null))
+         {
+            d += (float)Distance.l1(shortCounts, o, s.shortCounts, o, size) / (float)duration;
+         }
+         else
+         {
+            for (int i = o, j = o + size; i < j; i++)
+            {
+               d += Math.abs(decode(i, duration) - s.decode(i, duration));
+            }
+         }
+      }
+      return(d);
+   }
+
+
+   // Raw value kinds: float bits, byte counts, short counts or bits.
+   static final int RAW_FLOATS = 0;
+   static final int RAW_BYTES  = 1;
+   static final int RAW_SHORTS = 2;
+   static final int RAW_BITS   = 3;
+
+   // Get kind of raw values.
+   int getRawKind()
+   {
+      if (values != null)
+      {
+         return(RAW_FLOATS);
+      }
+      else if (byteCounts != null)
+      {
+         return(RAW_BYTES);
+      }
+      else if (shortCounts != null)
+      {
+         return(RAW_SHORTS);
+      }
+      else
+      {
+         return(RAW_BITS);
+      }
+   }
+
+
+   // Get encoded values as integers.
+   int[] getRaw()
+   {
+      int[] raw = new int[getConfiguration().size];
+
+      for (int i = 0; i < raw.length; i++)
+      {
+         if (values != null)
+         {
+            raw[i] = Float.floatToRawIntBits(values[i]);
+         }
+         else if (byteCounts != null)
+         {
+            raw[i] = byteCounts[i];
+         }
+         else if (shortCounts != null)
+         {
+            raw[i] = shortCounts[i];
+         }
+         else
+         {
+            raw[i] = (int)((bits[i >>> 6] >>> i) & 1L);
+         }
+      }
+      return(raw);
+   }
+
+
+   // Create signature from encoded values as integers.
+   static MorphognosticSignature fromRaw(int configuration, int kind, int[] raw)
+   {
+      switch (kind)
+      {
+      case RAW_FLOATS:
+         float[] values = new float[raw.length];
+         for (int i = 0; i < raw.length; i++)
+         {
+            values[i] = Float.intBitsToFloat(raw[i]);
+         }
+         return(new MorphognosticSignature(configuration, values));
+
+      case RAW_BYTES:
+         byte[] byteCounts = new byte[raw.length];
+         for (int i = 0; i < raw.length; i++)
+         {
+            byteCounts[i] = (byte)raw[i];
+         }
+         return(new MorphognosticSignature(configuration, byteCounts));
+
+      case RAW_SHORTS:
+         short[] shortCounts = new short[raw.length];
+         for (int i = 0; i < raw.length; i++)
+         {
+            shortCounts[i] = (short)raw[i];
+         }
+         return(new MorphognosticSignature(configuration, shortCounts));
+
+      default:
+         long[] bits = new long[getBitsLength(raw.length)];
+         for (int i = 0; i < raw.length; i++)
+         {
+            if (raw[i] != 0)
+            {
+               bits[i >>> 6] |= 1L << i;
+            }
+         }
+         return(new MorphognosticSignature(configuration, bits));
+      }
+   }
+
+
+   // Unrectify: values as stored by a morphognostic of orientation whose rectified values these are,
+   // null if the orientation cannot be rectified. A north morphognostic compares with the result
+   // as the morphognostic turned to the orientation compares with this signature.
+   public MorphognosticSignature unrectify(int orientation)
+   {
+      Configuration c = getConfiguration();
+
+      // Source index of each unrectified value.
+      int[] from = new int[c.size];
+      for (int n = 0; n < c.NUM_NEIGHBORHOODS; n++)
+      {
+         int[] p = Morphognostic.getRectifications(c.sectors[n])[orientation];
+         if (p == null)
+         {
+            return(null);
+         }
+         for (int i = 0; i < p.length; i++)
+         {
+            for (int d = 0, o = c.offsets[n] + (p[i] * c.eventDimensions), o2 = c.offsets[n] + (i * c.eventDimensions);
+                 d < c.eventDimensions; d++, o++, o2++)
+            {
+               from[o] = o2;
+            }
+         }
+      }
+      switch (encoding)
+      {
+      case DENSE:
+         float[] orientedValues = new float[c.size];
+         for (int i = 0; i < c.size; i++)
+         {
+            orientedValues[i] = values[from[i]];
+         }
+         return(new MorphognosticSignature(configuration, orientedValues));
+
+      case COUNTS:
+         if (byteCounts != null)
+         {
+            byte[] orientedCounts = new byte[c.size];
+            for (int i = 0; i < c.size; i++)
+            {
+               orientedCounts[i] = byteCounts[from[i]];
+            }
+            return(new MorphognosticSignature(configuration, orientedCounts));
+         }
+         short[] orientedCounts = new short[c.size];
+         for (int i = 0; i < c.size; i++)
+         {
+            orientedCounts[i] = shortCounts[from[i]];
+         }
+         return(new MorphognosticSignature(configuration, orientedCounts));
+
+      default:
+         long[] orientedBits = new long[bits.length];
+         for (int i = 0; i < c.size; i++)
+         {
+            if (((bits[from[i] >>> 6] >>> from[i]) & 1L) != 0)
+            {
+               orientedBits[i >>> 6] |= 1L << i;
+            }
+         }
+         return(new MorphognosticSignature(configuration, orientedBits));
+      }
+   }
+
+
+   // Equality test: values at zero distance.
+   public boolean equals(Object o)
+   {
+      if (!(o instanceof MorphognosticSignature))
+      {
+         return(false);
+      }
+      MorphognosticSignature s = (MorphognosticSignature)o;
+      return((hash == s.hash) && (configuration == s.configuration) && (compare(s) == 0.0f));
+   }
+
+
+   public int hashCode()
+   {
+      return(hash);
+   }
+
+
+   // Save.
+   public void save(DataOutputStream output) throws IOException
+   {
+      getConfiguration().save(output);
+      Utility.saveInt(output, encoding);
+      if (values != null)
+      {
+         ByteBuffer bytes = ByteBuffer.allocate(values.length * 4);
+         bytes.asFloatBuffer().put(values);
+         output.write(bytes.array());
+      }
+      else if (byteCounts != null)
+      {
+         Utility.saveInt(output, 1);
+         output.write(byteCounts);
+      }
+      else if (shortCounts != null)
+      {
+         Utility.saveInt(output, 2);
+         ByteBuffer bytes = ByteBuffer.allocate(shortCounts.length * 2);
+         bytes.asShortBuffer().put(shortCounts);
+         output.write(bytes.array());
+      }
+      else
+      {
+         ByteBuffer bytes = ByteBuffer.allocate(bits.length * 8);
+         bytes.asLongBuffer().put(bits);
+         output.write(bytes.array());
+      }
+      output.flush();
+   }
+
+
+   // Load.
+   public static MorphognosticSignature load(DataInputStream input) throws IOException
+   {
+      Configuration c        = Configuration.load(input);
+      int           encoding = Utility.loadInt(input);
+
+      if (encoding == BINARY)
+      {
+         byte[] data = new byte[getBitsLength(c.size) * 8];
+         input.readFully(data);
+         long[] bits = new long[getBitsLength(c.size)];
+         ByteBuffer.wrap(data).asLongBuffer().get(bits);
+         return(new MorphognosticSignature(c.id, bits));
+      }
+      if (encoding == DENSE)
+      {
+         byte[] data = new byte[c.size * 4];
+         input.readFully(data);
+         float[] values = new float[c.size];
+         ByteBuffer.wrap(data).asFloatBuffer().get(values);
+         return(new MorphognosticSignature(c.id, values));
+      }
+      if (Utility.loadInt(input) == 1)
+      {
+         byte[] counts = new byte[c.size];
+         input.readFully(counts);
+         return(new MorphognosticSignature(c.id, counts));
+      }
+      byte[] data = new byte[c.size * 2];
+      input.readFully(data);
+      short[] counts = new short[c.size];
+      ByteBuffer.wrap(data).asShortBuffer().get(counts);
+      return(new MorphognosticSignature(c.id, counts));
+   }
+
+
+   // Print.
+   public void print()
+   {
+      Configuration c = getConfiguration();
+
+      for (int i = 0; i < c.NUM_NEIGHBORHOODS; i++)
+      {
+         int d = c.sectors[i];
+         System.out.println("Neighborhood " + i + ":");
+         for (int y = 0; y < d; y++)
+         {
+            for (int x = 0; x < d; x++)
+            {
+               System.out.print("\tSector[" + x + "][" + y + "]:");
+               for (int e = 0; e < c.eventDimensions; e++)
+               {
+                  System.out.print(" " + getValue(i, x, y, e));
+               }
+               System.out.println();
+            }
+         }
+      }
+   }
+
+
+   // Neighborhood configuration shared by signatures.
+   public static class Configuration
+   {
+      // Parameters.
+      public final int     NUM_NEIGHBORHOODS;
+      public final int[][] NEIGHBORHOOD_DIMENSIONS;
+      public final int[]   NEIGHBORHOOD_DURATIONS;
+      public final int     eventDimensions;
+
+      // Neighborhood event dimension maps: null entries map all dimensions.
+      public final boolean[][] eventDimensionMaps;
+
+      // Mapped event dimensions by neighborhood, compiled from maps.
+      public final int[][] activeDims;
+
+      // Sectors per side and value offsets by neighborhood, and number of values.
+      public final int[] sectors;
+      public final int[] offsets;
+      public final int   size;
+
+      // Id.
+      public int id;
+
+      // Registry.
+      private static ArrayList<Configuration>        configurations = new ArrayList<Configuration>();
+      private static HashMap<Configuration, Integer> ids            = new HashMap<Configuration, Integer>();
+
+      // Constructors.
+      public Configuration(Morphognostic m)
+      {
+         this(m.NUM_NEIGHBORHOODS, m.NEIGHBORHOOD_DIMENSIONS, m.NEIGHBORHOOD_DURATIONS,
+              m.eventDimensions, getEventDimensionMaps(m));
+      }
+
+
+      public Configuration(int NUM_NEIGHBORHOODS, int[][] NEIGHBORHOOD_DIMENSIONS,
+                           int[] NEIGHBORHOOD_DURATIONS, int eventDimensions,
+                           boolean[][] eventDimensionMaps)
+      {
+         this.NUM_NEIGHBORHOODS       = NUM_NEIGHBORHOODS;
+         this.NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
+         this.NEIGHBORHOOD_DURATIONS  = new int[NUM_NEIGHBORHOODS];
+         this.eventDimensions         = eventDimensions;
+         this.eventDimensionMaps      = new boolean[NUM_NEIGHBORHOODS][];
+         activeDims = new int[NUM_NEIGHBORHOODS][];
+         sectors    = new int[NUM_NEIGHBORHOODS];
+         offsets    = new int[NUM_NEIGHBORHOODS];
+         int o = 0;
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            this.NEIGHBORHOOD_DIMENSIONS[i][0] = NEIGHBORHOOD_DIMENSIONS[i][0];
+            this.NEIGHBORHOOD_DIMENSIONS[i][1] = NEIGHBORHOOD_DIMENSIONS[i][1];
+            this.NEIGHBORHOOD_DURATIONS[i]     = NEIGHBORHOOD_DURATIONS[i];
+            if (eventDimensionMaps[i] != null)
+            {
+               this.eventDimensionMaps[i] = eventDimensionMaps[i].clone();
+            }
+            int a = 0;
+            for (int j = 0; j < eventDimensions; j++)
+            {
+               if (isMapped(i, j)) { a++; }
+            }
+            activeDims[i] = new int[a];
+            a = 0;
+            for (int j = 0; j < eventDimensions; j++)
+            {
+               if (isMapped(i, j))
+               {
+                  activeDims[i][a] = j;
+                  a++;
+               }
+            }
+            int d = NEIGHBORHOOD_DIMENSIONS[i][0] / NEIGHBORHOOD_DIMENSIONS[i][1];
+            if ((d * NEIGHBORHOOD_DIMENSIONS[i][1]) < NEIGHBORHOOD_DIMENSIONS[i][0]) { d++; }
+            sectors[i] = d;
+            offsets[i] = o;
+            o         += d * d * eventDimensions;
+         }
+         size = o;
+         id   = -1;
+      }
+
+
+      // Get event dimension maps of morphognostic neighborhoods.
+      private static boolean[][] getEventDimensionMaps(Morphognostic m)
+      {
+         boolean[][] maps = new boolean[m.NUM_NEIGHBORHOODS][];
+         for (int i = 0; i < m.NUM_NEIGHBORHOODS; i++)
+         {
+            maps[i] = m.neighborhoods[i].eventDimensionMap;
+         }
+         return(maps);
+      }
+
+
+      // Number of values of neighborhood.
+      public int getSize(int neighborhood)
+      {
+         return(sectors[neighborhood] * sectors[neighborhood] * eventDimensions);
+      }
+
+
+      // Get neighborhood containing value index.
+      public int getNeighborhood(int index)
+      {
+         int n = NUM_NEIGHBORHOODS - 1;
+
+         while (offsets[n] > index)
+         {
+            n--;
+         }
+         return(n);
+      }
+
+
+      // Is event dimension mapped to neighborhood?
+      public boolean isMapped(int neighborhood, int dimension)
+      {
+         return((eventDimensionMaps[neighborhood] == null) || eventDimensionMaps[neighborhood][dimension]);
+      }
+
+
+      // Get id of configuration, registering it if new.
+      public static synchronized int getId(Configuration c)
+      {
+         Integer id = ids.get(c);
+         if (id == null)
+         {
+            id   = configurations.size();
+            c.id = id;
+            configurations.add(c);
+            ids.put(c, id);
+         }
+         return(id);
+      }
+
+
+      // Get configuration by id.
+      public static synchronized Configuration get(int id)
+      {
+         return(configurations.get(id));
+      }
+
+
+      // Equality test.
+      public boolean equals(Object o)
+      {
+         if (!(o instanceof Configuration))
+         {
+            return(false);
+         }
+         Configuration c = (Configuration)o;
+         return((NUM_NEIGHBORHOODS == c.NUM_NEIGHBORHOODS) && (eventDimensions == c.eventDimensions) &&
+                Arrays.deepEquals(NEIGHBORHOOD_DIMENSIONS, c.NEIGHBORHOOD_DIMENSIONS) &&
+                Arrays.equals(NEIGHBORHOOD_DURATIONS, c.NEIGHBORHOOD_DURATIONS) &&
+                Arrays.deepEquals(eventDimensionMaps, c.eventDimensionMaps));
+      }
+
+
+      public int hashCode()
+      {
+         return(Arrays.deepHashCode(new Object[] { NEIGHBORHOOD_DIMENSIONS, NEIGHBORHOOD_DURATIONS,
+                                                   eventDimensions, eventDimensionMaps }));
+      }
+
+
+      // Save.
+      public void save(DataOutputStream output) throws IOException
+      {
+         Utility.saveInt(output, NUM_NEIGHBORHOODS);
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            Utility.saveInt(output, NEIGHBORHOOD_DIMENSIONS[i][0]);
+            Utility.saveInt(output, NEIGHBORHOOD_DIMENSIONS[i][1]);
+         }
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            Utility.saveInt(output, NEIGHBORHOOD_DURATIONS[i]);
+         }
+         Utility.saveInt(output, eventDimensions);
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            if (eventDimensionMaps[i] == null)
+            {
+               Utility.saveInt(output, 0);
+            }
+            else
+            {
+               Utility.saveInt(output, 1);
+               for (int j = 0; j < eventDimensions; j++)
+               {
+                  Utility.saveInt(output, eventDimensionMaps[i][j] ? 1 : 0);
+               }
+            }
+         }
+      }
+
+
+      // Load and register.
+      public static Configuration load(DataInputStream input) throws IOException
+      {
+         int NUM_NEIGHBORHOODS = Utility.loadInt(input);
+
+         int[][] NEIGHBORHOOD_DIMENSIONS = new int[NUM_NEIGHBORHOODS][2];
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            NEIGHBORHOOD_DIMENSIONS[i][0] = Utility.loadInt(input);
+            NEIGHBORHOOD_DIMENSIONS[i][1] = Utility.loadInt(input);
+         }
+         int[] NEIGHBORHOOD_DURATIONS = new int[NUM_NEIGHBORHOODS];
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            NEIGHBORHOOD_DURATIONS[i] = Utility.loadInt(input);
+         }
+         int         eventDimensions    = Utility.loadInt(input);
+         boolean[][] eventDimensionMaps = new boolean[NUM_NEIGHBORHOODS][];
+         for (int i = 0; i < NUM_NEIGHBORHOODS; i++)
+         {
+            if (Utility.loadInt(input) == 1)
+            {
+               eventDimensionMaps[i] = new boolean[eventDimensions];
+               for (int j = 0; j < eventDimensions; j++)
+               {
+                  eventDimensionMaps[i][j] = (Utility.loadInt(input) == 1);
+               }
+            }
+         }
+         Configuration c = new Configuration(NUM_NEIGHBORHOODS, NEIGHBORHOOD_DIMENSIONS,
+                                             NEIGHBORHOOD_DURATIONS, eventDimensions, eventDimensionMaps);
+         return(get(getId(c)));
+      }
+   }
+}
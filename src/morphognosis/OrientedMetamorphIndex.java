@@ -0,0 +1,229 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+package morphognosis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Oriented metamorph index:
+ * Signatures of metamorphs unrectified to every orientation that can be rectified,
+ * computed once when a metamorph is indexed, so that a north morphognostic is matched
+ * as if turned to every orientation by one bounded search, or exactly through variant fingerprints.
+ * Totals of values over the sectors of each neighborhood are the same in every orientation,
+ * and bound the distance to all variants of a metamorph from below: the search visits metamorphs
+ * in order of this bound, stopping once it exceeds the best distance found.
+ * Metamorphs appended to the list are indexed on next use;
+ * a list that has shrunk is reindexed.
+ */
+public class OrientedMetamorphIndex
+{
+   // Indexed metamorphs.
+   public ArrayList<Metamorph> metamorphs;
+
+   // Signature variants of indexed metamorphs by orientation, null where not rectifiable.
+   public ArrayList<MorphognosticSignature[]> variants;
+
+   // Totals of indexed metamorph values by neighborhood and event dimension.
+   public ArrayList<float[]> totals;
+
+   // Lower bound scale absorbing rounding of totals.
+   public static final float LOWER_BOUND_SCALE = 0.9999f;
+
+   // Variants by fingerprint, as metamorph index * NUM_ORIENTATIONS + orientation, in list order.
+   public HashMap<Long, ArrayList<Integer>> index;
+
+   // Number of metamorphs indexed.
+   public int size;
+
+   // Match: metamorph, its index, the orientation to which the morphognostic turned matches, and distance.
+   public static class Match
+   {
+      public Metamorph metamorph;
+      public int       index;
+      public int       orientation;
+      public float     distance;
+   }
+
+   // Constructor.
+   public OrientedMetamorphIndex(ArrayList<Metamorph> metamorphs)
+   {
+      this.metamorphs = metamorphs;
+      variants        = new ArrayList<MorphognosticSignature[]>();
+      totals          = new ArrayList<float[]>();
+      index           = new HashMap<Long, ArrayList<Integer>>();
+      size            = 0;
+   }
+
+
+   // Find first metamorph matching morphognostic exactly in any orientation, null if none.
+   public Match find(Morphognostic morphognostic)
+   {
+      update();
+      ArrayList<Integer> candidates = index.get(morphognostic.fingerprint());
+      if (candidates != null)
+      {
+         // Confirm against fingerprint collisions.
+         for (int i : candidates)
+         {
+            int m = i / Orientation.NUM_ORIENTATIONS;
+            int o = i % Orientation.NUM_ORIENTATIONS;
+            if (morphognostic.compare(variants.get(m)[o], 0.0f) == 0.0f)
+            {
+               return(createMatch(m, o, 0.0f));
+            }
+         }
+      }
+      return(null);
+   }
+
+
+   // Search for closest metamorph in any orientation within bound, null if none.
+   // Ties go to the first metamorph, then the first orientation.
+   public Match search(Morphognostic morphognostic, float bound)
+   {
+      int   m    = -1;
+      int   o    = -1;
+      float dist = bound;
+
+      update();
+
+      // Order metamorphs by lower bound, then index.
+      float[] queryTotals = getTotals(morphognostic);
+      long[]  order       = new long[size];
+      int     n           = 0;
+      for (int i = 0; i < size; i++)
+      {
+         if (metamorphs.get(i).signature.configuration == morphognostic.getConfiguration())
+         {
+            float[] t  = totals.get(i);
+            float   lb = Distance.l1(queryTotals, 0, t, 0, t.length) * LOWER_BOUND_SCALE;
+            order[n++] = ((long)Float.floatToIntBits(lb) << 32) | i;
+         }
+      }
+      Arrays.sort(order, 0, n);
+      for (int k = 0; k < n; k++)
+      {
+         if (Float.intBitsToFloat((int)(order[k] >>> 32)) > dist)
+         {
+            break;
+         }
+         int                      i          = (int)order[k];
+         MorphognosticSignature[] signatures = variants.get(i);
+         for (int j = 0; j < Orientation.NUM_ORIENTATIONS; j++)
+         {
+            if (signatures[j] != null)
+            {
+               // Bound by best distance: farther variants are rejected early.
+               float d = morphognostic.compare(signatures[j], dist);
+               if ((d < dist) || ((d == dist) && ((m == -1) || (i < m))))
+               {
+                  m    = i;
+                  o    = j;
+                  dist = d;
+               }
+            }
+         }
+      }
+      if (m == -1)
+      {
+         return(null);
+      }
+      return(createMatch(m, o, dist));
+   }
+
+
+   // Get totals of morphognostic values by neighborhood and event dimension.
+   private float[] getTotals(Morphognostic morphognostic)
+   {
+      float[] t = new float[morphognostic.NUM_NEIGHBORHOODS * morphognostic.eventDimensions];
+
+      morphognostic.touch();
+      for (int i = 0; i < morphognostic.NUM_NEIGHBORHOODS; i++)
+      {
+         Morphognostic.Neighborhood n = morphognostic.neighborhoods[i];
+         for (int j = n.offset, k = n.offset + n.size; j < k; j += morphognostic.eventDimensions)
+         {
+            for (int d = 0; d < morphognostic.eventDimensions; d++)
+            {
+               t[(i * morphognostic.eventDimensions) + d] += morphognostic.sectorValues[j + d];
+            }
+         }
+      }
+      return(t);
+   }
+
+
+   // Get totals of signature values by neighborhood and event dimension.
+   private float[] getTotals(MorphognosticSignature signature)
+   {
+      MorphognosticSignature.Configuration c = signature.getConfiguration();
+      float[] t = new float[c.NUM_NEIGHBORHOODS * c.eventDimensions];
+
+      for (int i = 0; i < c.NUM_NEIGHBORHOODS; i++)
+      {
+         for (int j = c.offsets[i], k = c.offsets[i] + c.getSize(i); j < k; j += c.eventDimensions)
+         {
+            for (int d = 0; d < c.eventDimensions; d++)
+            {
+               t[(i * c.eventDimensions) + d] += signature.decode(j + d, c.NEIGHBORHOOD_DURATIONS[i]);
+            }
+         }
+      }
+      return(t);
+   }
+
+
+   private Match createMatch(int m, int orientation, float distance)
+   {
+      Match match = new Match();
+
+      match.metamorph   = metamorphs.get(m);
+      match.index       = m;
+      match.orientation = orientation;
+      match.distance    = distance;
+      return(match);
+   }
+
+
+   // Index metamorphs added since last update.
+   public void update()
+   {
+      if (metamorphs.size() < size)
+      {
+         clear();
+      }
+      for ( ; size < metamorphs.size(); size++)
+      {
+         MorphognosticSignature   signature  = metamorphs.get(size).signature;
+         MorphognosticSignature[] signatures = new MorphognosticSignature[Orientation.NUM_ORIENTATIONS];
+         for (int o = 0; o < Orientation.NUM_ORIENTATIONS; o++)
+         {
+            signatures[o] = (o == Orientation.NORTH) ? signature : signature.unrectify(o);
+            if (signatures[o] != null)
+            {
+               ArrayList<Integer> indexes = index.get(signatures[o].fingerprint);
+               if (indexes == null)
+               {
+                  indexes = new ArrayList<Integer>(1);
+                  index.put(signatures[o].fingerprint, indexes);
+               }
+               indexes.add((size * Orientation.NUM_ORIENTATIONS) + o);
+            }
+         }
+         variants.add(signatures);
+         totals.add(getTotals(signature));
+      }
+   }
+
+
+   // Clear.
+   public void clear()
+   {
+      variants.clear();
+      totals.clear();
+      index.clear();
+      size = 0;
+   }
+}
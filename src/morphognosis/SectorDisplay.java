@@ -57,7 +57,7 @@ public class SectorDisplay extends JFrame implements Runnable
       this.sectorXindex      = sectorXindex;
       this.sectorYindex      = sectorYindex;
       morphognostic          = display.morphognostic;
-      neighborhood           = morphognostic.neighborhoods.get(neighborhoodIndex);
+      neighborhood           = morphognostic.neighborhoods[neighborhoodIndex];
       sector = neighborhood.sectors[sectorXindex][sectorYindex];
 
       setTitle("N=" + neighborhoodIndex + " D=" + neighborhood.duration +
@@ -173,17 +173,22 @@ public class SectorDisplay extends JFrame implements Runnable
          imageGraphics.setColor(Color.gray);
          imageGraphics.fillRect(0, 0, imageSize.width, imageSize.height);
 
-         // Draw values.
+         // Draw values of latest snapshot.
          fw = (float)imageSize.width / (float)morphognostic.eventDimensions;
          fx = 0.0f;
-         for (i = d = 0; d < morphognostic.eventDimensions; d++)
+         Morphognostic.Snapshot snapshot = morphognostic.acquireSnapshot();
+         if (snapshot != null)
          {
-            if (neighborhood.eventDimensionMap[d])
+            for (i = d = 0; d < morphognostic.eventDimensions; d++)
             {
-               imageGraphics.setColor(colors[d]);
-               h = (int)((float)imageSize.height * sector.getEventDimensionValue(d));
-               imageGraphics.fillRect((int)fx, imageSize.height - h, (int)(fw + 1.0), h);
+               if (neighborhood.eventDimensionMap[d])
+               {
+                  imageGraphics.setColor(colors[d]);
+                  h = (int)((float)imageSize.height * snapshot.getValue(sector, d));
+                  imageGraphics.fillRect((int)fx, imageSize.height - h, (int)(fw + 1.0), h);
+               }
             }
+            morphognostic.releaseSnapshot(snapshot);
          }
          imageGraphics.setColor(Color.black);
          imageGraphics.drawLine(0, 0, imageSize.width, 0);
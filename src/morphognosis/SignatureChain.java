@@ -0,0 +1,404 @@
+// For conditions of distribution and use, see copyright notice in Morphognosis.java
+
+package morphognosis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Signature chain:
+ * Sequence of signatures stored as keyframes and deltas.
+ * A delta holds the values of a signature that differ from those predicted by the previous one,
+ * either unchanged or shifted one neighborhood outward, as morphognostic neighborhoods age into each other:
+ * changed value indexes as gaps and changed values xor'ed with the predicted ones, as variable-length integers.
+ * A keyframe, a whole signature, starts the chain, recurs every keyframe interval,
+ * and replaces a delta that would be no smaller or a change of configuration or encoding.
+ * A signature is rebuilt on demand from its keyframe; the last rebuilt is kept for sequential access.
+ */
+public class SignatureChain
+{
+   // Entries between keyframes.
+   public static int KEYFRAME_INTERVAL = 64;
+   public int        keyframeInterval;
+
+   // Keyframe signatures.
+   public ArrayList<MorphognosticSignature> keyframes;
+
+   // Entries: keyframe number, and offset of delta, -1 for keyframes.
+   private int[] keyframeNumbers;
+   private int[] deltaOffsets;
+   private int   size;
+
+   // Deltas.
+   private byte[] deltas;
+   private int    deltasLength;
+
+   // Raw values of last entry, for adding.
+   private int[] lastRaw;
+
+   // Last rebuilt entry and its raw values.
+   private int   rebuiltIndex;
+   private int[] rebuiltRaw;
+
+   // Constructors.
+   public SignatureChain()
+   {
+      this(KEYFRAME_INTERVAL);
+   }
+
+
+   public SignatureChain(int keyframeInterval)
+   {
+      this.keyframeInterval = Math.max(1, keyframeInterval);
+      keyframes             = new ArrayList<MorphognosticSignature>();
+      keyframeNumbers       = new int[16];
+      deltaOffsets          = new int[16];
+      deltas       = new byte[256];
+      deltasLength = 0;
+      clear();
+   }
+
+
+   // Size.
+   public int size()
+   {
+      return(size);
+   }
+
+
+   // Stored size in bytes: keyframe values and deltas.
+   public int getStoredSize()
+   {
+      int n = deltasLength;
+
+      for (MorphognosticSignature s : keyframes)
+      {
+         n += getKeyframeSize(s);
+      }
+      return(n);
+   }
+
+
+   // Add signature.
+   public void add(MorphognosticSignature signature)
+   {
+      int[] raw   = signature.getRaw();
+      byte[] delta = null;
+
+      if (size > 0)
+      {
+         MorphognosticSignature keyframe = keyframes.get(keyframes.size() - 1);
+         if ((size - getEntry(keyframes.size() - 1) < keyframeInterval) &&
+             (keyframe.configuration == signature.configuration) &&
+             (keyframe.getRawKind() == signature.getRawKind()))
+         {
+            delta = encode(signature.getConfiguration(), lastRaw, raw);
+            if (delta.length >= getKeyframeSize(signature))
+            {
+               delta = null;
+            }
+         }
+      }
+      grow();
+      if (delta == null)
+      {
+         keyframes.add(signature);
+         keyframeNumbers[size] = keyframes.size() - 1;
+         deltaOffsets[size]    = -1;
+      }
+      else
+      {
+         keyframeNumbers[size] = keyframes.size() - 1;
+         deltaOffsets[size]    = deltasLength;
+         if (deltasLength + delta.length > deltas.length)
+         {
+            deltas = Arrays.copyOf(deltas, Math.max(deltas.length * 2, deltasLength + delta.length));
+         }
+         System.arraycopy(delta, 0, deltas, deltasLength, delta.length);
+         deltasLength += delta.length;
+      }
+      lastRaw = raw;
+      size++;
+   }
+
+
+   // Get signature.
+   public MorphognosticSignature get(int index)
+   {
+      if ((index < 0) || (index >= size))
+      {
+         throw new IndexOutOfBoundsException("Invalid signature chain index: " + index);
+      }
+      int keyframe = keyframeNumbers[index];
+      MorphognosticSignature k = keyframes.get(keyframe);
+      if (deltaOffsets[index] == -1)
+      {
+         return(k);
+      }
+
+      // Continue from last rebuilt entry if on the way from the keyframe.
+      int from = getEntry(keyframe);
+      int[] raw;
+      if ((rebuiltRaw != null) && (rebuiltIndex >= from) && (rebuiltIndex <= index))
+      {
+         from = rebuiltIndex;
+         raw  = rebuiltRaw.clone();
+      }
+      else
+      {
+         raw = k.getRaw();
+      }
+      MorphognosticSignature.Configuration c = k.getConfiguration();
+      for (int i = from + 1; i <= index; i++)
+      {
+         raw = decode(c, raw, deltaOffsets[i]);
+      }
+      rebuiltIndex = index;
+      rebuiltRaw   = raw;
+      return(MorphognosticSignature.fromRaw(k.configuration, k.getRawKind(), raw.clone()));
+   }
+
+
+   // Get entry of keyframe.
+   private int getEntry(int keyframe)
+   {
+      int i = Arrays.binarySearch(keyframeNumbers, 0, size, keyframe);
+
+      while ((i > 0) && (keyframeNumbers[i - 1] == keyframe))
+      {
+         i--;
+      }
+      return(i);
+   }
+
+
+   // Stored size of keyframe values.
+   private static int getKeyframeSize(MorphognosticSignature signature)
+   {
+      int n = signature.getConfiguration().size;
+
+      switch (signature.getRawKind())
+      {
+      case MorphognosticSignature.RAW_FLOATS:
+         return(n * 4);
+
+      case MorphognosticSignature.RAW_BYTES:
+         return(n);
+
+      case MorphognosticSignature.RAW_SHORTS:
+         return(n * 2);
+
+      default:
+         return(MorphognosticSignature.getBitsLength(n) * 8);
+      }
+   }
+
+
+   // Predict values from previous values shifted outward by neighborhoods.
+   private static int[] predict(MorphognosticSignature.Configuration c, int[] previous, int shift)
+   {
+      int[] prediction = previous.clone();
+
+      if (shift > 0)
+      {
+         for (int n = c.NUM_NEIGHBORHOODS - 1; n >= shift; n--)
+         {
+            int size = c.getSize(n);
+            if (size == c.getSize(n - shift))
+            {
+               System.arraycopy(previous, c.offsets[n - shift], prediction, c.offsets[n], size);
+            }
+         }
+      }
+      return(prediction);
+   }
+
+
+   // Encode delta of values from previous values by the closer prediction.
+   private static byte[] encode(MorphognosticSignature.Configuration c, int[] previous, int[] raw)
+   {
+      int[] best      = null;
+      int   bestShift = 0;
+      int   bestCount = Integer.MAX_VALUE;
+
+      for (int shift = 0; shift <= 1; shift++)
+      {
+         int[] prediction = predict(c, previous, shift);
+         int   count      = 0;
+         for (int i = 0; i < raw.length; i++)
+         {
+            if (raw[i] != prediction[i])
+            {
+               count++;
+            }
+         }
+         if (count < bestCount)
+         {
+            best      = prediction;
+            bestShift = shift;
+            bestCount = count;
+         }
+      }
+      try
+      {
+         ByteArrayOutputStream bytes  = new ByteArrayOutputStream();
+         DataOutputStream      output = new DataOutputStream(bytes);
+         Utility.saveVarInt(output, bestShift);
+         Utility.saveVarInt(output, bestCount);
+         for (int i = 0, last = -1; i < raw.length; i++)
+         {
+            if (raw[i] != best[i])
+            {
+               Utility.saveVarInt(output, i - last - 1);
+               Utility.saveVarInt(output, raw[i] ^ best[i]);
+               last = i;
+            }
+         }
+         output.flush();
+         return(bytes.toByteArray());
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException("Cannot encode signature delta: " + e.getMessage());
+      }
+   }
+
+
+   // Decode delta at offset onto previous values.
+   private int[] decode(MorphognosticSignature.Configuration c, int[] previous, int offset)
+   {
+      int[] pos = { offset };
+      int[] raw = predict(c, previous, readVarInt(pos));
+      int   n   = readVarInt(pos);
+
+      for (int j = 0, i = -1; j < n; j++)
+      {
+         i      += readVarInt(pos) + 1;
+         raw[i] ^= readVarInt(pos);
+      }
+      return(raw);
+   }
+
+
+   // Read variable-length integer from deltas, advancing position.
+   private int readVarInt(int[] pos)
+   {
+      int value = 0;
+
+      for (int shift = 0; ; shift += 7)
+      {
+         int b = deltas[pos[0]++] & 0xff;
+         value |= (b & 0x7f) << shift;
+         if ((b & 0x80) == 0)
+         {
+            return(value);
+         }
+      }
+   }
+
+
+   // Grow entries.
+   private void grow()
+   {
+      if (size == keyframeNumbers.length)
+      {
+         keyframeNumbers = Arrays.copyOf(keyframeNumbers, size * 2);
+         deltaOffsets    = Arrays.copyOf(deltaOffsets, size * 2);
+      }
+   }
+
+
+   // Clear.
+   public void clear()
+   {
+      keyframes.clear();
+      size         = 0;
+      deltasLength = 0;
+      lastRaw      = null;
+      rebuiltIndex = -1;
+      rebuiltRaw   = null;
+   }
+
+
+   // Save: keyframes as signatures, deltas as bytes.
+   public void save(DataOutputStream output) throws IOException
+   {
+      Utility.saveInt(output, keyframeInterval);
+      Utility.saveInt(output, size);
+      for (int i = 0; i < size; i++)
+      {
+         if (deltaOffsets[i] == -1)
+         {
+            output.writeByte(0);
+            keyframes.get(keyframeNumbers[i]).save(output);
+         }
+         else
+         {
+            int end = getDeltaEnd(i);
+            output.writeByte(1);
+            Utility.saveVarInt(output, end - deltaOffsets[i]);
+            output.write(deltas, deltaOffsets[i], end - deltaOffsets[i]);
+         }
+      }
+      output.flush();
+   }
+
+
+   // Get end of delta of entry.
+   private int getDeltaEnd(int index)
+   {
+      for (int i = index + 1; i < size; i++)
+      {
+         if (deltaOffsets[i] != -1)
+         {
+            return(deltaOffsets[i]);
+         }
+      }
+      return(deltasLength);
+   }
+
+
+   // Load.
+   public static SignatureChain load(DataInputStream input) throws IOException
+   {
+      SignatureChain chain = new SignatureChain(Utility.loadInt(input));
+      int            n     = Utility.loadInt(input);
+
+      for (int i = 0; i < n; i++)
+      {
+         chain.grow();
+         if (input.readByte() == 0)
+         {
+            chain.keyframes.add(MorphognosticSignature.load(input));
+            chain.keyframeNumbers[i] = chain.keyframes.size() - 1;
+            chain.deltaOffsets[i]    = -1;
+         }
+         else
+         {
+            if (i == 0)
+            {
+               throw new IOException("Signature chain starts with delta");
+            }
+            int length = Utility.loadVarInt(input);
+            if (chain.deltasLength + length > chain.deltas.length)
+            {
+               chain.deltas = Arrays.copyOf(chain.deltas, Math.max(chain.deltas.length * 2, chain.deltasLength + length));
+            }
+            input.readFully(chain.deltas, chain.deltasLength, length);
+            chain.keyframeNumbers[i] = chain.keyframes.size() - 1;
+            chain.deltaOffsets[i]    = chain.deltasLength;
+            chain.deltasLength      += length;
+         }
+         chain.size++;
+      }
+      if (n > 0)
+      {
+         chain.lastRaw = chain.get(n - 1).getRaw();
+      }
+      return(chain);
+   }
+}
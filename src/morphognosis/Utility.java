@@ -38,6 +38,23 @@ public abstract class Utility
    }
 
 
+   // Load unsigned variable-length integer: 7 bits per byte, low bits first.
+   public static int loadVarInt(DataInputStream in) throws IOException
+   {
+      int value = 0;
+
+      for (int shift = 0; ; shift += 7)
+      {
+         int b = in.readUnsignedByte();
+         value |= (b & 0x7f) << shift;
+         if ((b & 0x80) == 0)
+         {
+            return(value);
+         }
+      }
+   }
+
+
    // Save integer.
    public static void saveInt(DataOutputStream out, int value) throws IOException
    {
@@ -66,6 +83,18 @@ public abstract class Utility
    }
 
 
+   // Save unsigned variable-length integer.
+   public static void saveVarInt(DataOutputStream out, int value) throws IOException
+   {
+      while ((value & ~0x7f) != 0)
+      {
+         out.writeByte((value & 0x7f) | 0x80);
+         value >>>= 7;
+      }
+      out.writeByte(value);
+   }
+
+
    // Prevent instantiation.
    private Utility() {}
 }
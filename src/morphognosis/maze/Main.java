@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Random;
 import javax.swing.UIManager;
 import morphognosis.Morphognosis;
+import morphognosis.MorphognosticSignature;
 
 public class Main
 {
@@ -45,9 +46,11 @@ public class Main
       "Usage:\n" +
       "    java morphognosis.maze.Main\n" +
       "      [-batch (batch mode)]\n" +
+      "      [-parallelTraining (featurize training mazes in parallel, then train on them in order, instead of stepping the mouse through each maze)]\n" +
       "      [-responseDriver <metamorphDB | metamorphNN> (response driver, default=metamorphDB)]\n" +
       "      [-randomSeed <random number seed> (default=" + DEFAULT_RANDOM_SEED + ")]\n" +
       "      [-writeMetamorphDataset [<file name>] (default=" + Mouse.METAMORPH_DATASET_FILE_NAME + ")]\n" +
+      "      [-saveMetamorphs [<file name>] (save metamorphs with chained signatures and print their compression, default=" + Mouse.METAMORPHS_FILE_NAME + ")]\n" +
       "      Maze maker parameters:\n" +
       "        [-numDoors <quantity> (default=" + Parameters.NUM_DOORS + ")]\n" +
       "        [-mazeInteriorLength <length> (default=" + Parameters.MAZE_INTERIOR_LENGTH + ")]\n" +
@@ -55,6 +58,7 @@ public class Main
       "        [-numIndependentMazes <quantity> (default=" + Parameters.NUM_INDEPENDENT_MAZES + ")]\n" +
       "      Morphognosis parameters:\n" +
       "        [-neighborhoodDurations <comma-separated values> (implies number of neighborhoods)]\n" +
+      "        [-signatureEncoding <binary | counts | dense> (metamorph morphognostic encoding, default=binary)]\n" +
       "      Metamorph Weka neural network parameters:\n" +
       "        [-NNlearningRate <quantity> (default=" + Parameters.NN_LEARNING_RATE + ")]\n" +
       "        [-NNmomentum <quantity> (default=" + Parameters.NN_MOMENTUM + ")]\n" +
@@ -218,10 +222,13 @@ public class Main
    {
       // Get options.
       responseDriver = ResponseDriver.METAMORPH_DB;
-      boolean batch           = false;
-      boolean printParms      = false;
-      boolean gotDatasetParm  = false;
-      String  datasetFilename = Mouse.METAMORPH_DATASET_FILE_NAME;
+      boolean batch              = false;
+      boolean parallelTraining   = false;
+      boolean printParms         = false;
+      boolean gotDatasetParm     = false;
+      String  datasetFilename    = Mouse.METAMORPH_DATASET_FILE_NAME;
+      boolean gotMetamorphsParm  = false;
+      String  metamorphsFilename = Mouse.METAMORPHS_FILE_NAME;
 
       for (int i = 0; i < args.length; i++)
       {
@@ -230,6 +237,11 @@ public class Main
             batch = true;
             continue;
          }
+         if (args[i].equals("-parallelTraining"))
+         {
+            parallelTraining = true;
+            continue;
+         }
          if (args[i].equals("-responseDriver"))
          {
             i++;
@@ -389,6 +401,35 @@ public class Main
             }
             continue;
          }
+         if (args[i].equals("-signatureEncoding"))
+         {
+            i++;
+            if (i >= args.length)
+            {
+               System.err.println("Invalid signatureEncoding option");
+               System.err.println(Usage);
+               System.exit(1);
+            }
+            if (args[i].equals("binary"))
+            {
+               Mouse.SIGNATURE_ENCODING = MorphognosticSignature.BINARY;
+            }
+            else if (args[i].equals("dense"))
+            {
+               Mouse.SIGNATURE_ENCODING = MorphognosticSignature.DENSE;
+            }
+            else if (args[i].equals("counts"))
+            {
+               Mouse.SIGNATURE_ENCODING = MorphognosticSignature.COUNTS;
+            }
+            else
+            {
+               System.err.println("Invalid signatureEncoding option");
+               System.err.println(Usage);
+               System.exit(1);
+            }
+            continue;
+         }
          if (args[i].equals("-NNlearningRate"))
          {
             i++;
@@ -523,6 +564,19 @@ public class Main
             }
             continue;
          }
+         if (args[i].equals("-saveMetamorphs"))
+         {
+            gotMetamorphsParm = true;
+            if (i < args.length - 1)
+            {
+               if (!args[i + 1].startsWith("-"))
+               {
+                  i++;
+                  metamorphsFilename = args[i];
+               }
+            }
+            continue;
+         }
          if (args[i].equals("-help") || args[i].equals("-h") || args[i].equals("-?"))
          {
             System.out.println(Usage);
@@ -573,6 +627,7 @@ public class Main
 
       // Create maze driver.
       mazeDriver = new MazeDriver(responseDriver, randomSeed);
+      mazeDriver.parallelTraining = parallelTraining;
 
       // Batch run?
       if (batch)
@@ -598,6 +653,21 @@ public class Main
             System.exit(1);
          }
       }
+
+      // Save metamorphs?
+      if (gotMetamorphsParm)
+      {
+         try
+         {
+            mazeDriver.mouse.saveMetamorphs(metamorphsFilename);
+            System.out.print(mazeDriver.mouse.describeMetamorphStorage());
+         }
+         catch (Exception e)
+         {
+            System.err.println("Cannot save metamorphs to file " + metamorphsFilename + ": " + e.getMessage());
+            System.exit(1);
+         }
+      }
       System.exit(0);
    }
 }
@@ -105,9 +105,10 @@ public class MazeDashboard extends JFrame
       // Update mouse dashboard.
       mouseDashboard.update();
 
-      // Timer loop: count down delay by 1ms.
+      // Timer loop: count down delay by 1ms, publishing morphognostic snapshots as sector displays ask.
       for (timer = stepDelay; timer > 0 && !quit; quit = quit || mouseDashboard.quit)
       {
+         mouseDashboard.morphognosticPanel.publishSnapshot();
          try
          {
             Thread.sleep(1);
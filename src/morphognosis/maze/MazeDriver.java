@@ -37,6 +37,9 @@ public class MazeDriver
    // Test response driver.
    public int testResponseDriver;
 
+   // Train on mazes featurized offline in parallel, instead of stepping the mouse through each maze?
+   public boolean parallelTraining = false;
+
    // Random numbers.
    public Random random;
    public int    randomSeed;
@@ -277,9 +280,19 @@ public class MazeDriver
 
 
    // Train mouse on mazes.
+   // With parallel training, mazes matched exactly are featurized in parallel, then trained on in order.
    public void trainMazes()
    {
       mouse.responseDriver = ResponseDriver.TRAINING_OVERRIDE;
+      if (parallelTraining && (Mouse.EQUIVALENT_MORPHOGNOSTIC_DISTANCE == 0.0f))
+      {
+         ArrayList<MazeFeaturizer.Features> features = new MazeFeaturizer(mouse).featurize(trainMazes);
+         for (int i = 0, j = trainMazes.size(); i < j; i++)
+         {
+            mouse.train(trainMazes.get(i), features.get(i));
+         }
+         return;
+      }
       for (int i = 0, j = trainMazes.size(); i < j; i++)
       {
          maze = trainMazes.get(i);
@@ -0,0 +1,80 @@
+// For conditions of distribution and use, see copyright notice in Main.java
+
+// Maze featurizer: offline featurization of whole maze sensor sequences into morphognostic signatures.
+
+package morphognosis.maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import morphognosis.Morphognostic;
+import morphognosis.MorphognosticSignature;
+
+public class MazeFeaturizer
+{
+   // Features of a maze.
+   public static class Features
+   {
+      // Number of steps.
+      public int steps;
+
+      // Signatures by step and level.
+      public MorphognosticSignature[][] signatures;
+   }
+
+   // Cleared morphognostic of mouse levels to featurize with.
+   public Morphognostic prototype;
+
+   // Signature encoding.
+   public int encoding;
+
+   // Constructor.
+   public MazeFeaturizer(Mouse mouse)
+   {
+      prototype = mouse.morphognostics[mouse.morphognostics.length - 1].clone();
+      prototype.clear();
+
+      // Settle storage and configuration so that clones only read the prototype.
+      prototype.touch();
+      prototype.getConfiguration();
+      encoding = Mouse.SIGNATURE_ENCODING;
+   }
+
+
+   // Featurize maze, as from a reset mouse.
+   public Features featurize(Maze maze)
+   {
+      Morphognostic[] morphognostics = new Morphognostic[2];
+      morphognostics[1] = prototype.clone();
+      morphognostics[0] = new Morphognostic(morphognostics[1], 1);
+
+      Features features = new Features();
+      features.steps      = maze.sensorSequence.size();
+      features.signatures = new MorphognosticSignature[features.steps][2];
+      for (int step = 0; step < features.steps; step++)
+      {
+         morphognostics[1].update(maze.sensorSequence.get(step), 0, 0);
+         for (int n = 0; n < 2; n++)
+         {
+            features.signatures[step][n] = morphognostics[n].getSignature(encoding);
+         }
+      }
+      return(features);
+   }
+
+
+   // Featurize mazes in parallel, each with its own morphognostics.
+   public ArrayList<Features> featurize(List<Maze> mazes)
+   {
+      Features[] features = new Features[mazes.size()];
+
+      IntStream.range(0, features.length).parallel().forEach(i -> features[i] = featurize(mazes.get(i)));
+      ArrayList<Features> result = new ArrayList<Features>(features.length);
+      for (Features f : features)
+      {
+         result.add(f);
+      }
+      return(result);
+   }
+}
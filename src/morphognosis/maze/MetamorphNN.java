@@ -10,6 +10,7 @@ import java.util.Random;
 
 import morphognosis.Metamorph;
 import morphognosis.Morphognostic;
+import morphognosis.MorphognosticSignature;
 import weka.classifiers.evaluation.Evaluation;
 import weka.classifiers.functions.MultilayerPerceptron;
 import weka.classifiers.misc.SerializedClassifier;
@@ -43,26 +44,22 @@ public class MetamorphNN
       if (metamorphs.size() == 0) { return; }
 
       // Create metamorph training dataset.
-      Morphognostic morphognostic = metamorphs.get(0).morphognostic;
+      MorphognosticSignature.Configuration configuration = metamorphs.get(0).signature.getConfiguration();
       if (numAttributes == -1)
       {
-         setNumAttributes(morphognostic);
+         setNumAttributes(configuration);
       }
       ArrayList<Attribute> attributeNames = new ArrayList<Attribute>();
-      for (int i = 0; i < morphognostic.NUM_NEIGHBORHOODS; i++)
+      for (int i = 0; i < configuration.NUM_NEIGHBORHOODS; i++)
       {
-         Morphognostic.Neighborhood neighborhood = morphognostic.neighborhoods.get(i);
-         int n = neighborhood.sectors.length;
+         int n = configuration.sectors[i];
          for (int x = 0; x < n; x++)
          {
             for (int y = 0; y < n; y++)
             {
-               for (int d = 0; d < morphognostic.eventDimensions; d++)
+               for (int d : configuration.activeDims[i])
                {
-                  if (neighborhood.eventDimensionMap[d])
-                  {
-                     attributeNames.add(new Attribute(i + "-" + x + "-" + y + "-" + d));
-                  }
+                  attributeNames.add(new Attribute(i + "-" + x + "-" + y + "-" + d));
                }
             }
          }
@@ -76,7 +73,7 @@ public class MetamorphNN
       Instances metamorphInstances = new Instances("metamorphs", attributeNames, 0);
       for (Metamorph metamorph : metamorphs)
       {
-         metamorphInstances.add(createInstance(metamorph.morphognostic, metamorph.response));
+         metamorphInstances.add(createInstance(metamorph.signature, metamorph.response));
       }
       metamorphInstances.setClassIndex(numAttributes - 1);
 
@@ -115,30 +112,26 @@ public class MetamorphNN
 
 
    // Create instance.
-   public Instance createInstance(Morphognostic morphognostic, int response)
+   public Instance createInstance(MorphognosticSignature signature, int response)
    {
+      MorphognosticSignature.Configuration configuration = signature.getConfiguration();
       if (numAttributes == -1)
       {
-         setNumAttributes(morphognostic);
+         setNumAttributes(configuration);
       }
       double[]  attrValues = new double[numAttributes];
       int a = 0;
-      for (int i = 0; i < morphognostic.NUM_NEIGHBORHOODS; i++)
+      for (int i = 0; i < configuration.NUM_NEIGHBORHOODS; i++)
       {
-         Morphognostic.Neighborhood neighborhood = morphognostic.neighborhoods.get(i);
-         int n = neighborhood.sectors.length;
+         int n = configuration.sectors[i];
          for (int x = 0; x < n; x++)
          {
             for (int y = 0; y < n; y++)
             {
-               Morphognostic.Neighborhood.Sector s = neighborhood.sectors[x][y];
-               for (int d = 0; d < morphognostic.eventDimensions; d++)
+               for (int d : configuration.activeDims[i])
                {
-                  if (neighborhood.eventDimensionMap[d])
-                  {
-                     attrValues[a] = s.eventDimensionValues[d];
-                     a++;
-                  }
+                  attrValues[a] = signature.getValue(i, x, y, d);
+                  a++;
                }
             }
          }
@@ -150,26 +143,13 @@ public class MetamorphNN
 
 
    // Set number of attributes.
-   public void setNumAttributes(Morphognostic morphognostic)
+   public void setNumAttributes(MorphognosticSignature.Configuration configuration)
    {
       numAttributes = 0;
-      for (int i = 0; i < morphognostic.NUM_NEIGHBORHOODS; i++)
+      for (int i = 0; i < configuration.NUM_NEIGHBORHOODS; i++)
       {
-         Morphognostic.Neighborhood neighborhood = morphognostic.neighborhoods.get(i);
-         int n = neighborhood.sectors.length;
-         for (int x = 0; x < n; x++)
-         {
-            for (int y = 0; y < n; y++)
-            {
-               for (int d = 0; d < morphognostic.eventDimensions; d++)
-               {
-                  if (neighborhood.eventDimensionMap[d])
-                  {
-                     numAttributes++;
-                  }
-               }
-            }
-         }
+         int n = configuration.sectors[i];
+         numAttributes += n * n * configuration.activeDims[i].length;
       }
       numAttributes++;
    }
@@ -189,7 +169,7 @@ public class MetamorphNN
          System.err.println("Warning: cannot get metamorph neural network response: model is null");
          return(Mouse.WAIT_RESPONSE);
       }
-      Instance morphognosticInstance = createInstance(morphognostic, 0);
+      Instance morphognosticInstance = createInstance(morphognostic.getSignature(), 0);
       int      response = Mouse.WAIT_RESPONSE;
 
       try
@@ -238,7 +218,7 @@ public class MetamorphNN
          System.err.println("Warning: cannot get metamorph neural network response: model is null");
          return(null);
       }
-      Instance morphognosticInstance = createInstance(morphognostic, 0);
+      Instance morphognosticInstance = createInstance(morphognostic.getSignature(), 0);
       try
       {
          return(mlp.distributionForInstance(morphognosticInstance));
@@ -15,14 +15,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Random;
 
 import morphognosis.Metamorph;
+import morphognosis.MetamorphIndex;
 import morphognosis.Morphognostic;
+import morphognosis.MorphognosticSignature;
 import morphognosis.Orientation;
+import morphognosis.SignatureChain;
 import morphognosis.Utility;
-import morphognosis.Morphognostic.Neighborhood;
 
 public class Mouse
 {
@@ -49,15 +53,24 @@ public class Mouse
    public int[] currentMetamorphIdxs;
    public       ArrayList<Metamorph>[] metamorphs;
 
+   // Metamorph fingerprint indexes for exact matching.
+   public MetamorphIndex[] metamorphIndexes;
+
    // Metamorph neural networks.
    public MetamorphNN[] metamorphNNs;
 
    // Metamorph dataset file name.
    public static final String METAMORPH_DATASET_FILE_NAME = "metamorphs.csv";
 
+   // Metamorphs file name.
+   public static final String METAMORPHS_FILE_NAME = "metamorphs.dat";
+
    // Maximum distance between equivalent morphognostics.
    public static float EQUIVALENT_MORPHOGNOSTIC_DISTANCE = 0.0f;
 
+   // Metamorph morphognostic signature encoding: binary falls back to dense for non-binary values.
+   public static int SIGNATURE_ENCODING = MorphognosticSignature.BINARY;
+
    // Goal-seeking parameters.
    public static final float SOLVE_MAZE_GOAL_VALUE      = 1.0f;
    public static final float GOAL_VALUE_DISCOUNT_FACTOR = 0.9f;
@@ -109,20 +122,9 @@ public class Mouse
                                             Parameters.NUM_NEIGHBORHOODS,
                                             Parameters.NEIGHBORHOOD_DIMENSIONS,
                                             Parameters.NEIGHBORHOOD_DURATIONS);
-      neighborhoodEventDimensionMap = new boolean[1][eventDimensions];
-      for (int j = 0; j < eventDimensions; j++)
-      {
-         neighborhoodEventDimensionMap[0][j] = true;
-      }
-      int numNeighborhoods = 1;
-      int[][] neighborhoodDimensions = { Parameters.NEIGHBORHOOD_DIMENSIONS[0] };
-      int[] neighborhoodDurations    = { Parameters.NEIGHBORHOOD_DURATIONS[0] };
-      morphognostics[0] = new Morphognostic(Orientation.NORTH,
-                                            eventDimensions,
-                                            neighborhoodEventDimensionMap,
-                                            numNeighborhoods,
-                                            neighborhoodDimensions,
-                                            neighborhoodDurations);
+
+      // Level 0 is a view over the first level 1 neighborhood.
+      morphognostics[0] = new Morphognostic(morphognostics[1], 1);
 
       // Create metamorphs.
       currentMetamorphIdxs    = new int[2];
@@ -130,6 +132,9 @@ public class Mouse
       metamorphs    = new ArrayList[2];
       metamorphs[0] = new ArrayList<Metamorph>();
       metamorphs[1] = new ArrayList<Metamorph>();
+      metamorphIndexes    = new MetamorphIndex[2];
+      metamorphIndexes[0] = new MetamorphIndex(metamorphs[0]);
+      metamorphIndexes[1] = new MetamorphIndex(metamorphs[1]);
 
       // Metamorph neural networks.
       metamorphNNs = new MetamorphNN[2];
@@ -148,27 +153,33 @@ public class Mouse
       }
       response         = WAIT_RESPONSE;
       overrideResponse = -1;
-      morphognostics[0].clear();
       morphognostics[1].clear();
       currentMetamorphIdxs[0] = currentMetamorphIdxs[1] = -1;
    }
 
 
-   // Save mouse to file.
+   // Save mouse to file with a gathering write of the saved morphognostics.
    public void save(String filename) throws IOException
    {
-      DataOutputStream writer;
+      FileChannel channel;
 
       try
       {
-         writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(filename))));
+         channel = new FileOutputStream(new File(filename)).getChannel();
       }
       catch (Exception e)
       {
          throw new IOException("Cannot open output file " + filename + ":" + e.getMessage());
       }
-      save(writer);
-      writer.close();
+      ByteBuffer driver = ByteBuffer.allocate(4);
+      driver.putInt(responseDriver);
+      driver.flip();
+      ByteBuffer[] buffers = { morphognostics[0].toByteBuffer(), morphognostics[1].toByteBuffer(), driver };
+      while (driver.hasRemaining())
+      {
+         channel.write(buffers);
+      }
+      channel.close();
    }
 
 
@@ -182,33 +193,127 @@ public class Mouse
    }
 
 
-   // Load mouse from file.
+   // Load mouse from file, memory-mapping files of the versioned morphognostic format.
    public void load(String filename) throws IOException
    {
-      DataInputStream reader;
+      FileChannel channel;
 
       try
       {
-         reader = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(filename))));
+         channel = new FileInputStream(new File(filename)).getChannel();
       }
       catch (Exception e)
       {
          throw new IOException("Cannot open input file " + filename + ":" + e.getMessage());
       }
+      try
+      {
+         ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         if ((bytes.remaining() >= 4) && (bytes.getInt(0) == Morphognostic.FORMAT_MAGIC))
+         {
+            load(bytes);
+            return;
+         }
+      }
+      finally
+      {
+         channel.close();
+      }
+      DataInputStream reader = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(filename))));
       load(reader);
       reader.close();
    }
 
 
+   // Load mouse from buffer.
+   public void load(ByteBuffer bytes) throws IOException
+   {
+      Morphognostic.load(bytes);
+      morphognostics[1] = Morphognostic.load(bytes);
+      morphognostics[0] = new Morphognostic(morphognostics[1], 1);
+      responseDriver    = bytes.getInt();
+   }
+
+
    // Load mouse.
    public void load(DataInputStream reader) throws IOException
    {
-      morphognostics[0] = Morphognostic.load(reader);
+      Morphognostic.load(reader);
       morphognostics[1] = Morphognostic.load(reader);
+      morphognostics[0] = new Morphognostic(morphognostics[1], 1);
       responseDriver    = Utility.loadInt(reader);
    }
 
 
+   // Save metamorphs to file, signatures chained as keyframes and deltas.
+   public void saveMetamorphs(String filename) throws IOException
+   {
+      DataOutputStream writer;
+
+      try
+      {
+         writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(filename))));
+      }
+      catch (Exception e)
+      {
+         throw new IOException("Cannot open output file " + filename + ":" + e.getMessage());
+      }
+      for (int i = 0; i < metamorphs.length; i++)
+      {
+         Metamorph.save(metamorphs[i], writer);
+      }
+      writer.close();
+   }
+
+
+   // Load metamorphs from file.
+   public void loadMetamorphs(String filename) throws IOException
+   {
+      DataInputStream reader;
+
+      try
+      {
+         reader = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(filename))));
+      }
+      catch (Exception e)
+      {
+         throw new IOException("Cannot open input file " + filename + ":" + e.getMessage());
+      }
+      for (int i = 0; i < metamorphs.length; i++)
+      {
+         metamorphs[i]       = Metamorph.loadAll(reader);
+         metamorphIndexes[i] = new MetamorphIndex(metamorphs[i]);
+      }
+      reader.close();
+      currentMetamorphIdxs[0] = currentMetamorphIdxs[1] = -1;
+   }
+
+
+   // Describe storage of metamorph signatures chained, against whole signatures.
+   public String describeMetamorphStorage()
+   {
+      StringBuilder description = new StringBuilder();
+
+      for (int i = 0; i < metamorphs.length; i++)
+      {
+         SignatureChain chained = new SignatureChain();
+         SignatureChain whole   = new SignatureChain(1);
+         for (Metamorph m : metamorphs[i])
+         {
+            chained.add(m.signature);
+            whole.add(m.signature);
+         }
+         int c = chained.getStoredSize();
+         int w = whole.getStoredSize();
+         description.append("Level " + i + " metamorphs=" + metamorphs[i].size() +
+                            " keyframes=" + chained.keyframes.size() +
+                            " signature bytes=" + c + " (whole=" + w + ")" +
+                            " compression=" + String.format("%.2f", (c > 0) ? ((float)w / (float)c) : 1.0f) + "\n");
+      }
+      return(description.toString());
+   }
+
+
    // Sense/response cycle.
    public int cycle(float[] sensors)
    {
@@ -246,6 +351,18 @@ public class Mouse
    }
 
 
+   // Train on featurized maze, updating metamorphs as training cycles through the maze would.
+   public void train(Maze maze, MazeFeaturizer.Features features)
+   {
+      reset();
+      for (int step = 0; step < features.steps; step++)
+      {
+         response = maze.getResponse(step);
+         updateMetamorphs(features.signatures[step], response, goalValue(maze.getSensors(step), response));
+      }
+   }
+
+
    // Determine sensory-response goal value.
    public float goalValue(float[] sensors, int response)
    {
@@ -253,10 +370,9 @@ public class Mouse
    }
 
 
-   // Update morphognostics.
+   // Update morphognostics, level 0 through its level 1 base.
    public void updateMorphognostics()
    {
-      morphognostics[0].update(sensors, 0, 0);
       morphognostics[1].update(sensors, 0, 0);
    }
 
@@ -275,7 +391,8 @@ public class Mouse
          {
             if (!m.ambiguous)
             {
-               d2 = morphognostics[i].compare(m.morphognostic);
+               // Bound by best distance: farther metamorphs are rejected early.
+               d2 = morphognostics[i].compare(m.signature, metamorph == null ? Float.MAX_VALUE : dist);
                if ((metamorph == null) || (d2 < dist))
                {
                   dist      = d2;
@@ -361,7 +478,8 @@ public class Mouse
          {
             if (!m.ambiguous)
             {
-               float compare = m.morphognostic.compare(morphognostics[i]);
+               float compare = morphognostics[i].compare(m.signature,
+                                                         metamorph == null ? Float.MAX_VALUE : minCompare);
                if (metamorph == null)
                {
                   metamorph    = m;
@@ -401,54 +519,89 @@ public class Mouse
    {
       for (int n = 0; n < morphognostics.length; n++)
       {
-         Metamorph metamorph = new Metamorph(morphognostics[n].clone(), response,
-                                             goalValue, getResponseName(response));
-
-         metamorph.morphognostic.orientation = Orientation.NORTH;
-         int foundIdx = -1;
-         for (int i = 0, j = metamorphs[n].size(); i < j; i++)
+         int matchIdx = -1;
+         if (EQUIVALENT_MORPHOGNOSTIC_DISTANCE == 0.0f)
+         {
+            // Exact match by fingerprint.
+            matchIdx = metamorphIndexes[n].find(morphognostics[n]);
+         }
+         else
          {
-            Metamorph m = metamorphs[n].get(i);
-            if (m.morphognostic.compare(metamorph.morphognostic) <= EQUIVALENT_MORPHOGNOSTIC_DISTANCE)
+            for (int i = 0, j = metamorphs[n].size(); i < j; i++)
             {
-               if (m.response == metamorph.response)
-               {
-                  foundIdx = i;
-               }
-               else
+               if (morphognostics[n].compare(metamorphs[n].get(i).signature, EQUIVALENT_MORPHOGNOSTIC_DISTANCE) <= EQUIVALENT_MORPHOGNOSTIC_DISTANCE)
                {
-                  m.ambiguous = metamorph.ambiguous = true;
+                  matchIdx = i;
+                  break;
                }
-               break;
             }
          }
-         if (foundIdx == -1)
+         updateMetamorph(n, matchIdx, morphognostics[n], null, response, goalValue);
+      }
+   }
+
+
+   // Update metamorphs with signatures of featurized maze step, matching exactly.
+   public void updateMetamorphs(MorphognosticSignature[] signatures, int response, float goalValue)
+   {
+      for (int n = 0; n < signatures.length; n++)
+      {
+         updateMetamorph(n, metamorphIndexes[n].find(signatures[n]), null, signatures[n], response, goalValue);
+      }
+   }
+
+
+   // Update metamorph of level with matching metamorph index, adding signature of morphognostic if none.
+   private void updateMetamorph(int n, int matchIdx, Morphognostic morphognostic, MorphognosticSignature signature,
+                                int response, float goalValue)
+   {
+      int     foundIdx  = -1;
+      boolean ambiguous = false;
+      if (matchIdx != -1)
+      {
+         Metamorph m = metamorphs[n].get(matchIdx);
+         if (m.response == response)
+         {
+            foundIdx = matchIdx;
+         }
+         else
+         {
+            m.ambiguous = ambiguous = true;
+         }
+      }
+      if (foundIdx == -1)
+      {
+         // Store signature of rectified morphognostic.
+         if (signature == null)
          {
-            metamorphs[n].add(metamorph);
-            foundIdx = metamorphs[n].size() - 1;
+            signature = morphognostic.getSignature(SIGNATURE_ENCODING);
          }
-         if (currentMetamorphIdxs[n] != -1)
+         Metamorph metamorph = new Metamorph(signature, response, goalValue, getResponseName(response));
+         metamorph.ambiguous = ambiguous;
+         metamorphs[n].add(metamorph);
+         foundIdx = metamorphs[n].size() - 1;
+      }
+      if (currentMetamorphIdxs[n] != -1)
+      {
+         Metamorph currentMetamorph = metamorphs[n].get(currentMetamorphIdxs[n]);
+         for (int i = 0, j = currentMetamorph.effectIndexes.size(); i < j; i++)
          {
-            Metamorph currentMetamorph = metamorphs[n].get(currentMetamorphIdxs[n]);
-            for (int i = 0, j = currentMetamorph.effectIndexes.size(); i < j; i++)
+            if (currentMetamorph.effectIndexes.get(i) == foundIdx)
             {
-               if (currentMetamorph.effectIndexes.get(i) == foundIdx)
-               {
-                  foundIdx = -1;
-                  break;
-               }
+               foundIdx = -1;
+               break;
             }
-            if (foundIdx != -1)
-            {
-               currentMetamorph.effectIndexes.add(foundIdx);
-               metamorphs[n].get(foundIdx).causeIndexes.add(currentMetamorphIdxs[n]);
+         }
+         if (foundIdx != -1)
+         {
+            currentMetamorph.effectIndexes.add(foundIdx);
+            metamorphs[n].get(foundIdx).causeIndexes.add(currentMetamorphIdxs[n]);
 
-               // Propagate goal value.
-               propagateGoalValue(n, currentMetamorph, metamorphs[n].get(foundIdx).goalValue);
-            }
+            // Propagate goal value.
+            propagateGoalValue(n, currentMetamorph, metamorphs[n].get(foundIdx).goalValue);
          }
-         currentMetamorphIdxs[n] = foundIdx;
       }
+      currentMetamorphIdxs[n] = foundIdx;
    }
 
 
@@ -510,6 +663,7 @@ public class Mouse
       for (int i = 0; i < metamorphNNs.length; i++)
       {
          metamorphs[i].clear();
+         metamorphIndexes[i].clear();
          currentMetamorphIdxs[i] = -1;
       }
    }
@@ -530,18 +684,18 @@ public class Mouse
       }
       if (metamorphs[n].size() > 0)
       {
-         Morphognostic morphognostic = metamorphs[n].get(0).morphognostic;
-         String        oldlinesep    = System.getProperty("line.separator");
+         MorphognosticSignature.Configuration configuration = metamorphs[n].get(0).signature.getConfiguration();
+         String oldlinesep = System.getProperty("line.separator");
          System.setProperty("line.separator", "\n");
          PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(output)));
-         for (int i = 0; i < morphognostic.NUM_NEIGHBORHOODS; i++)
+         for (int i = 0; i < configuration.NUM_NEIGHBORHOODS; i++)
          {
-            int l = morphognostic.neighborhoods.get(i).sectors.length;
+            int l = configuration.sectors[i];
             for (int x = 0; x < l; x++)
             {
                for (int y = 0; y < l; y++)
                {
-                  for (int d = 0; d < morphognostic.eventDimensions; d++)
+                  for (int d = 0; d < configuration.eventDimensions; d++)
                   {
                      writer.print(i + "-" + x + "-" + y + "-" + d + ",");
                   }
@@ -551,7 +705,7 @@ public class Mouse
          writer.println("response");
          for (Metamorph m : metamorphs[n])
          {
-            writer.println(morphognostic2csv(m.morphognostic) + "," + m.response);
+            writer.println(morphognostic2csv(m.signature) + "," + m.response);
          }
          writer.flush();
          writer.close();
@@ -561,33 +715,18 @@ public class Mouse
    }
 
 
-   // Flatten morphognostic to csv string.
-   public String morphognostic2csv(Morphognostic morphognostic)
+   // Flatten morphognostic signature to csv string.
+   public String morphognostic2csv(MorphognosticSignature signature)
    {
-      String  output    = "";
-      boolean skipComma = true;
-      int     dx        = 0;
+      String output = "";
 
-      for (int i = 0; i < morphognostic.NUM_NEIGHBORHOODS; i++)
+      for (int i = 0, j = signature.size(); i < j; i++)
       {
-         Neighborhood neighborhood = morphognostic.neighborhoods.get(i);
-         float[][] values = neighborhood.rectifySectorValues();
-         int n = neighborhood.sectors.length;
-         for (int j = 0, j2 = n * n; j < j2; j++)
+         if (i > 0)
          {
-            for (int d = dx, d2 = morphognostic.eventDimensions; d < d2; d++)
-            {
-               if (skipComma)
-               {
-                  skipComma = false;
-               }
-               else
-               {
-                  output += ",";
-               }
-               output += (values[j][d] + "");
-            }
+            output += ",";
          }
+         output += (signature.getValue(i) + "");
       }
       return(output);
    }